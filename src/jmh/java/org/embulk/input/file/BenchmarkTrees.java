@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Synthesizes file trees of typical shapes for benchmarks.
+ */
+final class BenchmarkTrees {
+    private BenchmarkTrees() {
+        // No instantiation.
+    }
+
+    /**
+     * Creates a tree of {@code shape} under a new temporary directory, and returns the directory.
+     *
+     * <ul>
+     * <li>{@code wide}: a single directory with 20,000 files.
+     * <li>{@code deep}: a chain of 32 nested directories with 100 files in each.
+     * <li>{@code small_files}: 100 directories with 200 small files in each.
+     * <li>{@code symlinks}: 100 directories, half of which are symbolic links to the others, with 100 files in each
+     * and a symbolic link to each file.
+     * </ul>
+     */
+    static Path create(final String shape) throws IOException {
+        final Path root = Files.createTempDirectory("embulk-input-file_glob-benchmark-");
+        switch (shape) {
+            case "wide":
+                createFiles(root, 20000, 0);
+                break;
+            case "deep":
+                Path dir = root;
+                for (int depth = 0; depth < 32; depth++) {
+                    dir = Files.createDirectory(dir.resolve(String.format("depth%02d", depth)));
+                    createFiles(dir, 100, 0);
+                }
+                break;
+            case "small_files":
+                for (int i = 0; i < 100; i++) {
+                    createFiles(Files.createDirectory(root.resolve(String.format("dir%03d", i))), 200, 64);
+                }
+                break;
+            case "symlinks":
+                for (int i = 0; i < 100; i += 2) {
+                    final Path target = Files.createDirectory(root.resolve(String.format("dir%03d", i)));
+                    createFiles(target, 100, 0);
+                    for (int j = 0; j < 100; j++) {
+                        Files.createSymbolicLink(target.resolve(String.format("link%05d.csv", j)), target.resolve(String.format("file%05d.csv", j)));
+                    }
+                    Files.createSymbolicLink(root.resolve(String.format("dir%03d", i + 1)), target);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape of a tree: " + shape);
+        }
+        return root;
+    }
+
+    /**
+     * Creates {@code count} files of {@code size} bytes each in {@code dir}.
+     */
+    static void createFiles(final Path dir, final int count, final int size) throws IOException {
+        final byte[] line = "0123456789,abcdefghijklmnopqrstuvwxyz,0123456789\n".getBytes(StandardCharsets.UTF_8);
+        final byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = line[i % line.length];
+        }
+        for (int i = 0; i < count; i++) {
+            try (final OutputStream out = Files.newOutputStream(dir.resolve(String.format("file%05d.csv", i)))) {
+                out.write(content);
+            }
+        }
+    }
+
+    /**
+     * Creates a file of {@code size} bytes filled with lines.
+     */
+    static void createLargeFile(final Path file, final long size) throws IOException {
+        final byte[] chunk = new byte[1024 * 1024];
+        final byte[] line = "0123456789,abcdefghijklmnopqrstuvwxyz,0123456789\n".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = line[i % line.length];
+        }
+        try (final OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += chunk.length) {
+                out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+            }
+        }
+    }
+
+    static void delete(final Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+    }
+}
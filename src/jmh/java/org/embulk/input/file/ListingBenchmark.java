@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.embulk.config.ConfigSource;
+import org.embulk.util.config.ConfigMapperFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks listing files in trees of typical shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListingBenchmark {
+    @Param({ "wide", "deep", "small_files", "symlinks" })
+    public String shape;
+
+    // "sequential" walks with a thread, "batched_stat" reads attributes with 4 threads, and "parallel" walks with 4 threads.
+    @Param({ "sequential", "batched_stat", "parallel" })
+    public String walker;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.root = BenchmarkTrees.create(this.shape);
+        this.byPrefixTask = this.buildTask(this.root.toString() + File.separator);
+        this.byGlobTask = this.buildTask(this.root.toString() + File.separator + "**.csv");
+        this.deepestDirectory = this.root;
+        while (true) {
+            final File[] children = this.deepestDirectory.toFile().listFiles(File::isDirectory);
+            if (children == null || children.length == 0) {
+                break;
+            }
+            this.deepestDirectory = children[0].toPath();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkTrees.delete(this.root);
+    }
+
+    @Benchmark
+    public List<String> listFilesByPrefix() {
+        return FileGlobInputPlugin.listFilesForTesting(this.byPrefixTask);
+    }
+
+    @Benchmark
+    public List<String> listFilesByGlob() {
+        return FileGlobInputPlugin.listFilesForTesting(this.byGlobTask);
+    }
+
+    @Benchmark
+    public Path getRealCasePathOfDirectoryNoFollowLinks() {
+        return FileGlobInputPlugin.getRealCasePathOfDirectoryNoFollowLinks(this.deepestDirectory);
+    }
+
+    private FileGlobInputPlugin.PluginTask buildTask(final String pathGlob) {
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", pathGlob);
+        config.set("follow_symlinks", true);
+        if ("batched_stat".equals(this.walker)) {
+            config.set("stat_threads", 4);
+        } else if ("parallel".equals(this.walker)) {
+            config.set("listing_threads", 4);
+        }
+        return CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class);
+    }
+
+    private static final ConfigMapperFactory CONFIG_MAPPER_FACTORY = ConfigMapperFactory.builder().addDefaultModules().build();
+
+    private Path root;
+    private FileGlobInputPlugin.PluginTask byPrefixTask;
+    private FileGlobInputPlugin.PluginTask byGlobTask;
+    private Path deepestDirectory;
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.embulk.config.ConfigSource;
+import org.embulk.config.TaskSource;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.TransactionalFileInput;
+import org.embulk.test.EmbulkTestRuntime;
+import org.embulk.util.config.ConfigMapperFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the cost of {@code open()} per task, which should not grow with the total number of files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenBenchmark {
+    @Param({ "1000", "100000" })
+    public int files;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("embulk-input-file_glob-benchmark-");
+        BenchmarkTrees.createFiles(this.root, this.files, 0);
+        this.allocator = new EmbulkTestRuntime().getBufferAllocator();
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", this.root.resolve("file").toString());
+        this.plugin = new FileGlobInputPlugin();
+        this.plugin.transaction(config, (taskSource, taskCount) -> {
+            this.taskSource = taskSource;
+            this.taskCount = taskCount;
+            return new ArrayList<>();
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkTrees.delete(this.root);
+    }
+
+    @Benchmark
+    public boolean openTask() {
+        this.nextTask = (this.nextTask + 1) % this.taskCount;
+        // A new task source instance for each open(), as executors deserialize it for each task.
+        try (final TransactionalFileInput input = this.plugin.open(this.taskSource.deepCopy(), this.nextTask, this.allocator)) {
+            return input.nextFile();
+        }
+    }
+
+    private static final ConfigMapperFactory CONFIG_MAPPER_FACTORY = ConfigMapperFactory.builder().addDefaultModules().build();
+
+    private Path root;
+    private BufferAllocator allocator;
+    private FileGlobInputPlugin plugin;
+    private TaskSource taskSource;
+    private int taskCount;
+    private int nextTask;
+}
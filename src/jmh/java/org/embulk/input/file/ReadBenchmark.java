@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.embulk.config.ConfigSource;
+import org.embulk.config.TaskSource;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.TransactionalFileInput;
+import org.embulk.test.EmbulkTestRuntime;
+import org.embulk.util.config.ConfigMapperFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading 256 MiB of files end-to-end through {@code open()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadBenchmark {
+    @Param({ "stream", "channel", "mmap" })
+    public String readMode;
+
+    @Param({ "0", "4" })
+    public int readAheadBuffers;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.root = Files.createTempDirectory("embulk-input-file_glob-benchmark-");
+        for (int i = 0; i < FILES; i++) {
+            BenchmarkTrees.createLargeFile(this.root.resolve(String.format("large%02d.csv", i)), FILE_SIZE);
+        }
+        this.allocator = new EmbulkTestRuntime().getBufferAllocator();
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", this.root.resolve("large").toString());
+        config.set("read_mode", this.readMode);
+        config.set("read_ahead_buffers", this.readAheadBuffers);
+        config.set("tasks", 1);
+        this.plugin = new FileGlobInputPlugin();
+        this.plugin.transaction(config, (taskSource, taskCount) -> {
+            this.taskSource = taskSource;
+            return new ArrayList<>();
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkTrees.delete(this.root);
+    }
+
+    /**
+     * Reads all the files, and returns the number of bytes read. Divide it by the time to get the throughput.
+     */
+    @Benchmark
+    public long readAllFiles() {
+        long bytes = 0;
+        try (final TransactionalFileInput input = this.plugin.open(this.taskSource, 0, this.allocator)) {
+            while (input.nextFile()) {
+                for (Buffer buffer = input.poll(); buffer != null; buffer = input.poll()) {
+                    bytes += buffer.limit();
+                    buffer.release();
+                }
+            }
+            input.commit();
+        }
+        if (bytes != FILES * FILE_SIZE) {
+            throw new IllegalStateException("Read " + bytes + " bytes unexpectedly.");
+        }
+        return bytes;
+    }
+
+    private static final int FILES = 8;
+
+    private static final long FILE_SIZE = 32L * 1024L * 1024L;
+
+    private static final ConfigMapperFactory CONFIG_MAPPER_FACTORY = ConfigMapperFactory.builder().addDefaultModules().build();
+
+    private Path root;
+    private BufferAllocator allocator;
+    private FileGlobInputPlugin plugin;
+    private TaskSource taskSource;
+}
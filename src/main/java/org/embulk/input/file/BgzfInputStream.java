@@ -0,0 +1,222 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes BGZF, a series of gzip members of at most 64 KiB each with their sizes in the "BC" extra subfield.
+ *
+ * <p>The members are independent deflate streams, and their boundaries are known without inflating them. It reads
+ * members sequentially, and inflates up to {@code blocksAhead} of them in parallel with {@code executor}, in order.
+ */
+final class BgzfInputStream extends InputStream {
+    BgzfInputStream(final InputStream in, final ExecutorService executor, final int blocksAhead) {
+        this.in = in;
+        this.executor = executor;
+        this.blocksAhead = Math.max(1, blocksAhead);
+        this.pending = new ArrayDeque<>();
+        this.current = EMPTY;
+        this.position = 0;
+        this.endOfInput = false;
+    }
+
+    static boolean isBgzfHeader(final byte[] header) {
+        return header[0] == Decompression.GZIP_ID1
+                && header[1] == Decompression.GZIP_ID2
+                && header[2] == 8  // CM: deflate
+                && header[3] == FEXTRA  // FLG: only FEXTRA, so that the deflate stream starts right after the header
+                && readUnsignedShort(header, 10) == 6  // XLEN
+                && header[12] == 'B'
+                && header[13] == 'C'
+                && readUnsignedShort(header, 14) == 2;  // SLEN
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!this.ensureCurrent()) {
+            return -1;
+        }
+        return this.current[this.position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!this.ensureCurrent()) {
+            return -1;
+        }
+        final int read = Math.min(length, this.current.length - this.position);
+        System.arraycopy(this.current, this.position, bytes, offset, read);
+        this.position += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return this.current.length - this.position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (final Future<byte[]> block : this.pending) {
+            block.cancel(true);
+        }
+        this.pending.clear();
+        this.in.close();
+    }
+
+    /**
+     * Makes {@code current} have bytes to read, and returns {@code false} at the end of the stream.
+     */
+    private boolean ensureCurrent() throws IOException {
+        while (this.position >= this.current.length) {
+            this.submitBlocks();
+            final Future<byte[]> next = this.pending.poll();
+            if (next == null) {
+                return false;
+            }
+            try {
+                this.current = next.get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while decompressing BGZF.", ex);
+            } catch (final ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw new IOException("Failed to decompress BGZF.", ex.getCause());
+            }
+            this.position = 0;
+        }
+        return true;
+    }
+
+    private void submitBlocks() throws IOException {
+        while (!this.endOfInput && this.pending.size() < this.blocksAhead) {
+            final byte[] block = this.readBlock();
+            if (block == null) {
+                this.endOfInput = true;
+                return;
+            }
+            this.pending.add(this.executor.submit(() -> inflateBlock(block)));
+        }
+    }
+
+    /**
+     * Reads a whole member as it is compressed, or returns {@code null} at the end of the input.
+     */
+    private byte[] readBlock() throws IOException {
+        final byte[] header = new byte[Decompression.BGZF_HEADER_SIZE];
+        final int headerRead = readFully(this.in, header, 0, header.length);
+        if (headerRead == 0) {
+            return null;
+        }
+        if (headerRead < header.length || !isBgzfHeader(header)) {
+            throw new IOException("Not a BGZF block in a stream started as BGZF.");
+        }
+        final int blockSize = readUnsignedShort(header, 16) + 1;
+        if (blockSize < header.length + TRAILER_SIZE) {
+            throw new IOException("Invalid size of a BGZF block: " + blockSize);
+        }
+        final byte[] block = new byte[blockSize];
+        System.arraycopy(header, 0, block, 0, header.length);
+        if (readFully(this.in, block, header.length, blockSize - header.length) < blockSize - header.length) {
+            throw new EOFException("Unexpected end of a BGZF block.");
+        }
+        return block;
+    }
+
+    private static byte[] inflateBlock(final byte[] block) throws IOException {
+        final int trailer = block.length - TRAILER_SIZE;
+        final long expectedCrc = readUnsignedInt(block, trailer);
+        final int size = (int) readUnsignedInt(block, trailer + 4);
+        final byte[] inflated = new byte[size];
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(block, Decompression.BGZF_HEADER_SIZE, trailer - Decompression.BGZF_HEADER_SIZE);
+            int inflatedSize = 0;
+            while (inflatedSize < size && !inflater.finished()) {
+                final int n = inflater.inflate(inflated, inflatedSize, size - inflatedSize);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflatedSize += n;
+            }
+            if (inflatedSize != size) {
+                throw new IOException("Unexpected size of an inflated BGZF block: " + inflatedSize + " for " + size);
+            }
+        } catch (final DataFormatException ex) {
+            throw new IOException("Corrupted BGZF block.", ex);
+        } finally {
+            inflater.end();
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(inflated, 0, inflated.length);
+        if (crc.getValue() != expectedCrc) {
+            throw new IOException("CRC32 mismatch in a BGZF block.");
+        }
+        return inflated;
+    }
+
+    private static int readFully(final InputStream in, final byte[] bytes, final int offset, final int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            final int n = in.read(bytes, offset + read, length - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    private static int readUnsignedShort(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    private static long readUnsignedInt(final byte[] bytes, final int offset) {
+        return (readUnsignedShort(bytes, offset) | ((long) readUnsignedShort(bytes, offset + 2) << 16)) & 0xffffffffL;
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final int FEXTRA = 0x04;
+
+    // CRC32 and ISIZE.
+    private static final int TRAILER_SIZE = 8;
+
+    private final InputStream in;
+    private final ExecutorService executor;
+    private final int blocksAhead;
+    private final ArrayDeque<Future<byte[]>> pending;
+
+    private byte[] current;
+    private int position;
+    private boolean endOfInput;
+}
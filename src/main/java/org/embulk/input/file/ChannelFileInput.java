@@ -0,0 +1,195 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
+import org.embulk.spi.TransactionalFileInput;
+
+/**
+ * Reads files of a task with {@link FileChannel} into {@link Buffer}s from {@link BufferAllocator}.
+ *
+ * <p>It reads with positional reads through a reusable direct {@link ByteBuffer}, or through memory-mapped windows of
+ * the files if {@code memoryMapped} is {@code true}. Both still copy bytes into the heap array of {@link Buffer} with
+ * {@link Buffer#setBytes(int, ByteBuffer)}. They save only the layer of {@code InputStream}, not the copy.
+ *
+ * <p>Byte ranges of files are read in the same manner with {@link LineRangeInputStream}.
+ */
+abstract class ChannelFileInput implements TransactionalFileInput {
+    /**
+     * Creates an input of {@code files}.
+     *
+     * <p>{@code rangeStarts} and {@code rangeEnds} are byte ranges of the files, -1 for whole files, or {@code null}
+     * if no file is split.
+     */
+    ChannelFileInput(
+            final BufferAllocator allocator,
+            final List<String> files,
+            final List<Long> rangeStarts,
+            final List<Long> rangeEnds,
+            final boolean memoryMapped) {
+        this.allocator = allocator;
+        this.files = files;
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+        this.memoryMapped = memoryMapped;
+        this.nextIndex = 0;
+    }
+
+    @Override
+    public boolean nextFile() {
+        this.closeCurrentFile();
+        if (this.nextIndex >= this.files.size()) {
+            return false;
+        }
+        final int index = this.nextIndex++;
+        this.currentFile = new File(this.files.get(index));
+        try {
+            this.channel = FileChannel.open(this.currentFile.toPath(), StandardOpenOption.READ);
+            if (this.rangeStarts != null && this.rangeStarts.get(index) >= 0) {
+                this.position = LineRangeInputStream.alignToLineStart(this.channel, this.rangeStarts.get(index));
+                this.end = LineRangeInputStream.alignToLineStart(this.channel, this.rangeEnds.get(index));
+            } else {
+                this.position = 0;
+                // A file is read until its end, even if it has grown since it was listed. But a mapped file ends at its
+                // size when it is opened.
+                this.end = this.memoryMapped ? this.channel.size() : Long.MAX_VALUE;
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return true;
+    }
+
+    @Override
+    public Buffer poll() {
+        if (this.channel == null) {
+            throw new IllegalStateException("nextFile() must be called before poll()");
+        }
+        if (this.position >= this.end) {
+            return null;
+        }
+        final Buffer buffer = this.allocator.allocate();
+        try {
+            final int read;
+            if (this.memoryMapped) {
+                read = this.readMapped(buffer);
+            } else {
+                read = this.readChannel(buffer);
+            }
+            if (read <= 0) {
+                buffer.release();
+                this.end = this.position;
+                return null;
+            }
+            buffer.limit(read);
+            this.position += read;
+            return buffer;
+        } catch (final IOException ex) {
+            buffer.release();
+            throw new UncheckedIOException(ex);
+        } catch (final RuntimeException ex) {
+            buffer.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closeCurrentFile();
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        return Optional.ofNullable(this.currentFile).map(File::getAbsolutePath);
+    }
+
+    private int readChannel(final Buffer buffer) throws IOException {
+        final int length = (int) Math.min(buffer.capacity(), this.end - this.position);
+        if (this.transfer == null || this.transfer.capacity() < length) {
+            this.transfer = ByteBuffer.allocateDirect(Math.max(length, buffer.capacity()));
+        }
+        this.transfer.clear();
+        this.transfer.limit(length);
+        while (this.transfer.hasRemaining()) {
+            final int read = this.channel.read(this.transfer, this.position + this.transfer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        this.transfer.flip();
+        final int read = this.transfer.remaining();
+        buffer.setBytes(0, this.transfer);
+        return read;
+    }
+
+    private int readMapped(final Buffer buffer) throws IOException {
+        if (this.window == null || this.position >= this.windowStart + this.window.capacity()) {
+            final long windowSize = Math.min(MAPPED_WINDOW_SIZE, this.end - this.position);
+            // The previous window is unmapped when it is garbage-collected. Java 8 has no public API to unmap it.
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, windowSize);
+            this.windowStart = this.position;
+        }
+        final int offsetInWindow = (int) (this.position - this.windowStart);
+        final int length = Math.min(buffer.capacity(), this.window.capacity() - offsetInWindow);
+        final ByteBuffer slice = this.window.duplicate();
+        slice.position(offsetInWindow);
+        slice.limit(offsetInWindow + length);
+        buffer.setBytes(0, slice);
+        return length;
+    }
+
+    private void closeCurrentFile() {
+        this.window = null;
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                this.channel = null;
+            }
+        }
+    }
+
+    // Large enough to amortize mapping, and small enough for the address space of 32-bit JVMs.
+    private static final long MAPPED_WINDOW_SIZE = 64L * 1024L * 1024L;
+
+    private final BufferAllocator allocator;
+    private final List<String> files;
+    private final List<Long> rangeStarts;
+    private final List<Long> rangeEnds;
+    private final boolean memoryMapped;
+
+    private int nextIndex;
+    private File currentFile;
+    private FileChannel channel;
+    private long position;
+    private long end;
+    private ByteBuffer transfer;
+    private MappedByteBuffer window;
+    private long windowStart;
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses input streams of files for {@code decompress: auto}.
+ *
+ * <p>The codec is detected by the magic number at the head of a stream, not by the extension of a file, so that
+ * renamed or extension-less files are handled correctly. Only gzip is detected, which the JDK can decode without extra
+ * dependencies. Other streams are passed through as-is.
+ *
+ * <p>BGZF, gzip in independent blocks written by {@code bgzip}, is decoded block-parallel with {@code executor} if it
+ * is given. Other gzip streams are decoded sequentially with {@link GZIPInputStream}, including concatenated members.
+ */
+final class Decompression {
+    private Decompression() {
+        // No instantiation.
+    }
+
+    static InputStream open(final InputStream raw, final ExecutorService executor, final int blocksAhead) throws IOException {
+        final BufferedInputStream in = new BufferedInputStream(raw, BUFFER_SIZE);
+        final byte[] header = new byte[BGZF_HEADER_SIZE];
+        in.mark(header.length);
+        int read = 0;
+        while (read < header.length) {
+            final int n = in.read(header, read, header.length - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        in.reset();
+
+        if (read < 2 || header[0] != GZIP_ID1 || header[1] != GZIP_ID2) {
+            return in;
+        }
+        if (executor != null && read == BGZF_HEADER_SIZE && BgzfInputStream.isBgzfHeader(header)) {
+            return new BgzfInputStream(in, executor, blocksAhead);
+        }
+        return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+
+    static final byte GZIP_ID1 = (byte) 0x1f;
+    static final byte GZIP_ID2 = (byte) 0x8b;
+
+    // ID1, ID2, CM, FLG, MTIME(4), XFL, OS, XLEN(2), and the "BC" subfield of SI1, SI2, SLEN(2) and BSIZE(2).
+    static final int BGZF_HEADER_SIZE = 18;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Excludes files and directories matching any of glob patterns while walking.
+ *
+ * <p>A file is excluded if its path matches any of the patterns. A directory is pruned without being read if a pattern
+ * ends with {@code "**"} as a whole path element, such as {@code "/data/_tmp/**"}, and the rest of the pattern matches
+ * the directory. Then, every path under the directory matches the pattern.
+ */
+final class ExcludeMatcher {
+    private ExcludeMatcher(final List<PathMatcher> fileMatchers, final List<PathMatcher> directoryMatchers) {
+        this.fileMatchers = fileMatchers;
+        this.directoryMatchers = directoryMatchers;
+    }
+
+    /**
+     * Compiles glob patterns. Relative patterns are resolved from {@code workingDirectory} as included patterns are.
+     */
+    static ExcludeMatcher compile(final List<String> globs, final Path workingDirectory) {
+        final ArrayList<PathMatcher> fileMatchers = new ArrayList<>();
+        final ArrayList<PathMatcher> directoryMatchers = new ArrayList<>();
+        for (final String glob : globs) {
+            final Path pattern = workingDirectory.resolve(Paths.get(glob));
+            fileMatchers.add(toPathMatcher(pattern));
+            final Path lastName = pattern.getFileName();
+            final Path directoryPattern = pattern.getParent();
+            if (lastName != null && lastName.toString().equals("**") && directoryPattern != null) {
+                directoryMatchers.add(toPathMatcher(directoryPattern));
+            }
+        }
+        return new ExcludeMatcher(fileMatchers, directoryMatchers);
+    }
+
+    boolean isEmpty() {
+        return this.fileMatchers.isEmpty();
+    }
+
+    boolean excludesFile(final Path file) {
+        for (final PathMatcher matcher : this.fileMatchers) {
+            if (matcher.matches(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean excludesDirectory(final Path dir) {
+        for (final PathMatcher matcher : this.directoryMatchers) {
+            if (matcher.matches(dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static PathMatcher toPathMatcher(final Path pattern) {
+        final String patternString = pattern.toString();
+        if (File.separatorChar == '\\') {
+            return FileSystems.getDefault().getPathMatcher("glob:" + patternString.replace("\\", "\\\\"));
+        }
+        return FileSystems.getDefault().getPathMatcher("glob:" + patternString);
+    }
+
+    private final List<PathMatcher> fileMatchers;
+    private final List<PathMatcher> directoryMatchers;
+}
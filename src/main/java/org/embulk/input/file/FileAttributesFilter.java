@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Filters files by their sizes and modification times with attributes already read while walking.
+ *
+ * <p>All the bounds are inclusive of files on the boundary except {@code modifiedAfterMillis} and
+ * {@code modifiedBeforeMillis}, which are exclusive.
+ *
+ * <p>Files are also filtered by {@code watermark} of {@code incremental_mode: mtime} if it is not {@code null}.
+ */
+final class FileAttributesFilter {
+    FileAttributesFilter(
+            final long minSize,
+            final long maxSize,
+            final long modifiedAfterMillis,
+            final long modifiedBeforeMillis,
+            final long modifiedNoLaterThanMillis,
+            final ModifiedTimeWatermark watermark) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.modifiedAfterMillis = modifiedAfterMillis;
+        this.modifiedBeforeMillis = modifiedBeforeMillis;
+        this.modifiedNoLaterThanMillis = modifiedNoLaterThanMillis;
+        this.watermark = watermark;
+        this.filtersByModifiedTime = modifiedAfterMillis != Long.MIN_VALUE
+                || modifiedBeforeMillis != Long.MAX_VALUE
+                || modifiedNoLaterThanMillis != Long.MAX_VALUE;
+    }
+
+    boolean accepts(final Path path, final BasicFileAttributes attrs) {
+        final long size = attrs.size();
+        if (size < this.minSize || size > this.maxSize) {
+            return false;
+        }
+        if (this.filtersByModifiedTime) {
+            final long modifiedMillis = attrs.lastModifiedTime().toMillis();
+            if (modifiedMillis <= this.modifiedAfterMillis
+                    || modifiedMillis >= this.modifiedBeforeMillis
+                    || modifiedMillis > this.modifiedNoLaterThanMillis) {
+                return false;
+            }
+        }
+        return this.watermark == null || this.watermark.accepts(path, attrs.lastModifiedTime());
+    }
+
+    private final long minSize;
+    private final long maxSize;
+    private final long modifiedAfterMillis;
+    private final long modifiedBeforeMillis;
+    private final long modifiedNoLaterThanMillis;
+    private final ModifiedTimeWatermark watermark;
+    private final boolean filtersByModifiedTime;
+}
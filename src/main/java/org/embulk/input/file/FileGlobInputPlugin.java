@@ -16,31 +16,55 @@
 
 package org.embulk.input.file;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.embulk.config.ConfigDiff;
+import org.embulk.config.ConfigException;
 import org.embulk.config.ConfigSource;
 import org.embulk.config.TaskReport;
 import org.embulk.config.TaskSource;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.BufferAllocator;
 import org.embulk.spi.Exec;
 import org.embulk.spi.FileInputPlugin;
 import org.embulk.spi.TransactionalFileInput;
@@ -62,31 +86,351 @@ public class FileGlobInputPlugin implements FileInputPlugin {
         @ConfigDefault("null")
         Optional<String> getPathPrefixOptional();
 
+        @Config("path_globs")
+        @ConfigDefault("null")
+        Optional<List<String>> getPathGlobs();
+
+        @Config("exclude_globs")
+        @ConfigDefault("[]")
+        List<String> getExcludeGlobs();
+
         @Config("last_path")
         @ConfigDefault("null")
         Optional<String> getLastPath();
 
+        @Config("incremental_mode")
+        @ConfigDefault("\"path\"")
+        IncrementalMode getIncrementalMode();
+
+        @Config("last_modified_time")
+        @ConfigDefault("null")
+        Optional<String> getLastModifiedTime();
+
+        @Config("last_modified_paths")
+        @ConfigDefault("[]")
+        List<String> getLastModifiedPaths();
+
         @Config("follow_symlinks")
         @ConfigDefault("false")
         boolean getFollowSymlinks();
 
-        List<String> getFiles();
+        @Config("listing_threads")
+        @ConfigDefault("1")
+        int getListingThreads();
+
+        @Config("stat_threads")
+        @ConfigDefault("1")
+        int getStatThreads();
+
+        @Config("deduplicate_by_file_key")
+        @ConfigDefault("false")
+        boolean getDeduplicateByFileKey();
+
+        @Config("fingerprint_store_path")
+        @ConfigDefault("null")
+        Optional<String> getFingerprintStorePath();
+
+        @Config("fingerprint_sample_size")
+        @ConfigDefault("4096")
+        int getFingerprintSampleSize();
+
+        @Config("listing_cache_path")
+        @ConfigDefault("null")
+        Optional<String> getListingCachePath();
+
+        @Config("log_sample_files")
+        @ConfigDefault("10")
+        int getLogSampleFiles();
+
+        @Config("file_list_manifest_path")
+        @ConfigDefault("null")
+        Optional<String> getFileListManifestPath();
+
+        @Config("tasks")
+        @ConfigDefault("null")
+        Optional<Integer> getTasks();
+
+        @Config("min_task_size")
+        @ConfigDefault("null")
+        Optional<Long> getMinTaskSize();
+
+        @Config("max_task_size")
+        @ConfigDefault("null")
+        Optional<Long> getMaxTaskSize();
+
+        @Config("task_order")
+        @ConfigDefault("\"listing\"")
+        TaskOrder getTaskOrder();
+
+        @Config("split_size")
+        @ConfigDefault("null")
+        Optional<Long> getSplitSize();
+
+        @Config("read_mode")
+        @ConfigDefault("\"stream\"")
+        ReadMode getReadMode();
+
+        @Config("read_buffer_size")
+        @ConfigDefault("null")
+        Optional<Integer> getReadBufferSize();
+
+        @Config("read_ahead_buffers")
+        @ConfigDefault("0")
+        int getReadAheadBuffers();
+
+        @Config("prefetch_size")
+        @ConfigDefault("0")
+        int getPrefetchSize();
+
+        @Config("decompress")
+        @ConfigDefault("\"none\"")
+        Decompress getDecompress();
+
+        @Config("decompress_threads")
+        @ConfigDefault("1")
+        int getDecompressThreads();
+
+        @Config("min_size")
+        @ConfigDefault("null")
+        Optional<Long> getMinSize();
+
+        @Config("max_size")
+        @ConfigDefault("null")
+        Optional<Long> getMaxSize();
+
+        @Config("modified_after")
+        @ConfigDefault("null")
+        Optional<String> getModifiedAfter();
+
+        @Config("modified_before")
+        @ConfigDefault("null")
+        Optional<String> getModifiedBefore();
+
+        @Config("min_age")
+        @ConfigDefault("null")
+        Optional<Long> getMinAge();
+
+        // Files of each task encoded by TaskFileList, so that the task source stays small with a large number of files.
+        List<String> getTaskFileLists();
+
+        void setTaskFileLists(List<String> taskFileLists);
+
+        // A unique ID of the transaction, for open() to find the task mapped from the same task source in MappedTaskCache.
+        String getTransactionId();
 
-        void setFiles(List<String> files);
+        void setTransactionId(String transactionId);
+
+        // The watermark advanced by the files listed, to be set in the next config with "incremental_mode: mtime".
+        Optional<String> getNextLastModifiedTime();
+
+        void setNextLastModifiedTime(Optional<String> nextLastModifiedTime);
+
+        List<String> getNextLastModifiedPaths();
+
+        void setNextLastModifiedPaths(List<String> nextLastModifiedPaths);
+    }
+
+    public enum Decompress {
+        NONE,
+        AUTO,
+        ;
+
+        @JsonCreator
+        public static Decompress of(final String value) {
+            for (final Decompress decompress : values()) {
+                if (decompress.toString().equals(value)) {
+                    return decompress;
+                }
+            }
+            throw new ConfigException("\"decompress\" must be one of \"none\" or \"auto\": " + value);
+        }
+
+        @JsonValue
+        @Override
+        public String toString() {
+            return this.name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    public enum IncrementalMode {
+        PATH,
+        MTIME,
+        ;
+
+        @JsonCreator
+        public static IncrementalMode of(final String value) {
+            for (final IncrementalMode incrementalMode : values()) {
+                if (incrementalMode.toString().equals(value)) {
+                    return incrementalMode;
+                }
+            }
+            throw new ConfigException("\"incremental_mode\" must be one of \"path\" or \"mtime\": " + value);
+        }
+
+        @JsonValue
+        @Override
+        public String toString() {
+            return this.name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    public enum TaskOrder {
+        LISTING,
+        LARGEST_FIRST,
+        ;
+
+        @JsonCreator
+        public static TaskOrder of(final String value) {
+            for (final TaskOrder taskOrder : values()) {
+                if (taskOrder.toString().equals(value)) {
+                    return taskOrder;
+                }
+            }
+            throw new ConfigException("\"task_order\" must be one of \"listing\" or \"largest_first\": " + value);
+        }
+
+        @JsonValue
+        @Override
+        public String toString() {
+            return this.name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    public enum ReadMode {
+        STREAM,
+        CHANNEL,
+        MMAP,
+        ;
+
+        @JsonCreator
+        public static ReadMode of(final String value) {
+            for (final ReadMode readMode : values()) {
+                if (readMode.toString().equals(value)) {
+                    return readMode;
+                }
+            }
+            throw new ConfigException("\"read_mode\" must be one of \"stream\", \"channel\" or \"mmap\": " + value);
+        }
+
+        @JsonValue
+        @Override
+        public String toString() {
+            return this.name().toLowerCase(Locale.ENGLISH);
+        }
     }
 
     @Override
     @SuppressWarnings("deprecation")  // For the use of task#dump().
     public ConfigDiff transaction(final ConfigSource config, final FileInputPlugin.Control control) {
         final PluginTask task = CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, PluginTask.class);
+        if (task.getPathGlobs().isPresent()) {
+            if (task.getPathGlobOptional().isPresent() || task.getPathPrefixOptional().isPresent()) {
+                throw new ConfigException("\"path_globs\" cannot be set with \"path_glob\" nor \"path_prefix\".");
+            }
+            if (task.getPathGlobs().get().isEmpty()) {
+                throw new ConfigException("\"path_globs\" must contain at least one pattern.");
+            }
+        }
+        if (task.getStatThreads() < 1) {
+            throw new ConfigException("\"stat_threads\" must be 1 or more: " + task.getStatThreads());
+        }
+        if (task.getStatThreads() > 1 && (task.getListingThreads() > 1 || task.getListingCachePath().isPresent())) {
+            throw new ConfigException("\"stat_threads\" cannot be set with \"listing_threads\" nor \"listing_cache_path\".");
+        }
+        if (task.getLogSampleFiles() < 0) {
+            throw new ConfigException("\"log_sample_files\" must be 0 or more: " + task.getLogSampleFiles());
+        }
+        if (task.getListingThreads() < 1) {
+            throw new ConfigException("\"listing_threads\" must be 1 or more: " + task.getListingThreads());
+        }
+        if (task.getTasks().isPresent() && (task.getMinTaskSize().isPresent() || task.getMaxTaskSize().isPresent())) {
+            throw new ConfigException("\"tasks\" cannot be set with \"min_task_size\" nor \"max_task_size\".");
+        }
+        if (task.getTasks().isPresent() && task.getTasks().get() < 1) {
+            throw new ConfigException("\"tasks\" must be 1 or more: " + task.getTasks().get());
+        }
+        if (task.getSplitSize().isPresent() && task.getSplitSize().get() < 1) {
+            throw new ConfigException("\"split_size\" must be 1 or more: " + task.getSplitSize().get());
+        }
+        if (task.getReadBufferSize().isPresent() && task.getReadBufferSize().get() < 1) {
+            throw new ConfigException("\"read_buffer_size\" must be 1 or more: " + task.getReadBufferSize().get());
+        }
+        if (task.getReadAheadBuffers() < 0) {
+            throw new ConfigException("\"read_ahead_buffers\" must be 0 or more: " + task.getReadAheadBuffers());
+        }
+        if (task.getPrefetchSize() < 0) {
+            throw new ConfigException("\"prefetch_size\" must be 0 or more: " + task.getPrefetchSize());
+        }
+        if (task.getPrefetchSize() > 0 && task.getReadMode() != ReadMode.STREAM) {
+            throw new ConfigException("\"read_mode\" must be \"stream\" with \"prefetch_size\": " + task.getReadMode());
+        }
+        if (task.getDecompress() == Decompress.AUTO) {
+            if (task.getSplitSize().isPresent()) {
+                throw new ConfigException("\"split_size\" cannot be set with \"decompress: auto\".");
+            }
+            if (task.getReadMode() != ReadMode.STREAM) {
+                throw new ConfigException("\"read_mode\" must be \"stream\" with \"decompress: auto\": " + task.getReadMode());
+            }
+        }
+        if (task.getDecompressThreads() < 1) {
+            throw new ConfigException("\"decompress_threads\" must be 1 or more: " + task.getDecompressThreads());
+        }
+        if (task.getMinSize().isPresent() && task.getMinSize().get() < 0) {
+            throw new ConfigException("\"min_size\" must be 0 or more: " + task.getMinSize().get());
+        }
+        if (task.getMaxSize().isPresent() && task.getMaxSize().get() < task.getMinSize().orElse(0L)) {
+            throw new ConfigException("\"max_size\" must be \"min_size\" or more, and 0 or more: " + task.getMaxSize().get());
+        }
+        if (task.getMinAge().isPresent() && task.getMinAge().get() < 0) {
+            throw new ConfigException("\"min_age\" must be 0 or more: " + task.getMinAge().get());
+        }
+        if (task.getFingerprintSampleSize() < 0) {
+            throw new ConfigException("\"fingerprint_sample_size\" must be 0 or more: " + task.getFingerprintSampleSize());
+        }
 
         // list files recursively
-        final List<String> files = listFiles(task);
-        logger.info("Loading files {}", files);
-        task.setFiles(files);
+        final ListingStats listingStats = new ListingStats();
+        final List<ListedFile> listedFiles = listFiles(task, listingStats);
+        final List<ListedFile> files;
+        if (task.getFingerprintStorePath().isPresent()) {
+            final FingerprintStore store = FingerprintStore.load(
+                    Paths.get(task.getFingerprintStorePath().get()), task.getFingerprintSampleSize());
+            files = store.filterNew(listedFiles);
+            // The store is updated in resume() only after all the tasks succeed.
+            store.savePending();
+        } else {
+            files = listedFiles;
+        }
+        logger.info("Loading {}", FileListSummary.of(files, task.getLogSampleFiles()));
+        logger.info("Listed {}", listingStats);
+        if (logger.isDebugEnabled()) {
+            // One line per file not to format the whole list into a string.
+            for (final ListedFile file : files) {
+                logger.debug("Loading file {}", file);
+            }
+        }
+        if (task.getFileListManifestPath().isPresent()) {
+            writeFileListManifest(Paths.get(task.getFileListManifestPath().get()), files);
+        }
+
+        final TaskPacker packer = orderTasks(task, packFilesIntoTasks(task, splitFiles(task, files)));
+        final ArrayList<String> taskFileLists = new ArrayList<>(packer.getTaskCount());
+        for (int i = 0; i < packer.getTaskCount(); i++) {
+            taskFileLists.add(TaskFileList.encode(packer.getTaskFiles(i)));
+        }
+        task.setTaskFileLists(taskFileLists);
+        task.setTransactionId(UUID.randomUUID().toString());
+        if (task.getIncrementalMode() == IncrementalMode.MTIME) {
+            final ModifiedTimeWatermark nextWatermark = watermarkOf(task).advance(listedFiles);
+            task.setNextLastModifiedTime(nextWatermark.getTime());
+            task.setNextLastModifiedPaths(nextWatermark.getPaths());
+        } else {
+            task.setNextLastModifiedTime(Optional.empty());
+            task.setNextLastModifiedPaths(Collections.emptyList());
+        }
 
-        // number of processors is same with number of files
-        final int taskCount = task.getFiles().size();
+        // number of processors is same with number of files unless "tasks", "min_task_size", "max_task_size" or "split_size" is set
+        final int taskCount = packer.getTaskCount();
         return resume(task.dump(), taskCount, control);
     }
 
@@ -94,21 +438,47 @@ public class FileGlobInputPlugin implements FileInputPlugin {
     public ConfigDiff resume(final TaskSource taskSource, final int taskCount, final FileInputPlugin.Control control) {
         final PluginTask task = CONFIG_MAPPER_FACTORY.createTaskMapper().map(taskSource, PluginTask.class);
 
-        control.run(taskSource, taskCount);
+        final List<TaskReport> taskReports;
+        try {
+            taskReports = control.run(taskSource, taskCount);
+        } finally {
+            OPENED_TASKS.remove(task.getTransactionId());
+        }
+        if (taskReports != null && !taskReports.isEmpty()) {
+            logger.info("Read {}", ReadStatsFileInput.summarize(taskReports));
+        }
+        if (task.getFingerprintStorePath().isPresent()) {
+            FingerprintStore.commitPending(Paths.get(task.getFingerprintStorePath().get()));
+        }
 
         // build next config
         final ConfigDiff configDiff = CONFIG_MAPPER_FACTORY.newConfigDiff();
 
+        if (task.getIncrementalMode() == IncrementalMode.MTIME) {
+            // The watermark is kept as-is if no file is listed. It is absent only if no file has ever been listed.
+            if (task.getNextLastModifiedTime().isPresent()) {
+                configDiff.set("last_modified_time", task.getNextLastModifiedTime().get());
+                configDiff.set("last_modified_paths", task.getNextLastModifiedPaths());
+            }
+            return configDiff;
+        }
+
         // last_path
-        if (task.getFiles().isEmpty()) {
+        String lastPath = null;
+        for (final String taskFileList : task.getTaskFileLists()) {
+            for (final String file : TaskFileList.decode(taskFileList).getPaths()) {
+                if (lastPath == null || file.compareTo(lastPath) > 0) {
+                    lastPath = file;
+                }
+            }
+        }
+        if (lastPath == null) {
             // keep the last value
             if (task.getLastPath().isPresent()) {
                 configDiff.set("last_path", task.getLastPath().get());
             }
         } else {
-            final List<String> files = new ArrayList<String>(task.getFiles());
-            Collections.sort(files);
-            configDiff.set("last_path", files.get(files.size() - 1));
+            configDiff.set("last_path", lastPath);
         }
 
         return configDiff;
@@ -116,21 +486,70 @@ public class FileGlobInputPlugin implements FileInputPlugin {
 
     @Override
     public void cleanup(final TaskSource taskSource, final int taskCount, final List<TaskReport> successTaskReports) {
+        final PluginTask task = CONFIG_MAPPER_FACTORY.createTaskMapper().map(taskSource, PluginTask.class);
+        OPENED_TASKS.remove(task.getTransactionId());
     }
 
     @Override
     public TransactionalFileInput open(final TaskSource taskSource, final int taskIndex) {
-        final PluginTask task = CONFIG_MAPPER_FACTORY.createTaskMapper().map(taskSource, PluginTask.class);
+        return open(taskSource, taskIndex, Exec.getBufferAllocator());
+    }
 
-        final File file = new File(task.getFiles().get(taskIndex));
+    // Opened with a given allocator also from benchmarks, which run without Embulk's execution session.
+    TransactionalFileInput open(final TaskSource taskSource, final int taskIndex, final BufferAllocator allocator) {
+        final PluginTask task = OPENED_TASKS.get(taskSource);
 
-        return new InputStreamTransactionalFileInput(
-                Exec.getBufferAllocator(),
-                new InputStreamTransactionalFileInput.Opener() {
-                    public InputStream open() throws IOException {
-                        return new FileInputStream(file);
-                    }
-                }) {
+        final TaskFileList taskFileList = TaskFileList.decode(task.getTaskFileLists().get(taskIndex));
+        final List<String> files = taskFileList.getPaths();
+        final List<Long> rangeStarts = taskFileList.getRangeStarts();
+        final List<Long> rangeEnds = taskFileList.getRangeEnds();
+
+        final TransactionalFileInput input = new ReadStatsFileInput(openFiles(task, allocator, files, rangeStarts, rangeEnds));
+        final int readAheadBuffers = readAheadBuffersOf(task);
+        if (readAheadBuffers > 0) {
+            return new ReadAheadFileInput(input, readAheadBuffers);
+        }
+        return input;
+    }
+
+    /**
+     * Returns the number of buffers to read ahead. Files are always read ahead with "decompress: auto" so that they are
+     * decompressed in a thread separate from the parser.
+     */
+    private static int readAheadBuffersOf(final PluginTask task) {
+        if (task.getDecompress() == Decompress.AUTO) {
+            return Math.max(task.getReadAheadBuffers(), DECOMPRESS_READ_AHEAD_BUFFERS);
+        }
+        return task.getReadAheadBuffers();
+    }
+
+    private static TransactionalFileInput openFiles(
+            final PluginTask task,
+            final BufferAllocator baseAllocator,
+            final List<String> files,
+            final List<Long> rangeStarts,
+            final List<Long> rangeEnds) {
+        final BufferAllocator allocator = withReadBufferSize(task, baseAllocator);
+        if (task.getReadMode() != ReadMode.STREAM) {
+            return new ChannelFileInput(allocator, files, rangeStarts, rangeEnds, task.getReadMode() == ReadMode.MMAP) {
+                @Override
+                public void abort() {}
+
+                @Override
+                public TaskReport commit() {
+                    return CONFIG_MAPPER_FACTORY.newTaskReport();
+                }
+            };
+        }
+
+        final FilesProvider provider = new FilesProvider(
+                files,
+                rangeStarts,
+                rangeEnds,
+                task.getDecompress() == Decompress.AUTO,
+                task.getDecompressThreads(),
+                task.getPrefetchSize());
+        return new InputStreamTransactionalFileInput(allocator, provider) {
             @Override
             public void abort() {}
 
@@ -141,13 +560,305 @@ public class FileGlobInputPlugin implements FileInputPlugin {
 
             @Override
             public Optional<String> hintOfCurrentInputFileNameForLogging() {
-                return Optional.ofNullable(file.getAbsolutePath());
+                return provider.getCurrentFile().map(File::getAbsolutePath);
+            }
+        };
+    }
+
+    /**
+     * Returns {@code allocator} to allocate buffers of "read_buffer_size" at least if it is set.
+     */
+    private static BufferAllocator withReadBufferSize(final PluginTask task, final BufferAllocator allocator) {
+        if (!task.getReadBufferSize().isPresent()) {
+            return allocator;
+        }
+        final int readBufferSize = task.getReadBufferSize().get();
+        return new BufferAllocator() {
+            @Override
+            public Buffer allocate() {
+                return allocator.allocate(readBufferSize);
+            }
+
+            @Override
+            public Buffer allocate(final int minimumCapacity) {
+                return allocator.allocate(Math.max(minimumCapacity, readBufferSize));
             }
         };
     }
 
+    /**
+     * A glob pattern compiled for walking.
+     */
+    private static final class GlobPattern {
+        private GlobPattern(
+                final String pattern,
+                final Path dirToStartWalking,
+                final PathMatcher matcher,
+                final GlobSegmentMatcher segmentMatcher) {
+            this.pattern = pattern;
+            this.dirToStartWalking = dirToStartWalking;
+            this.matcher = matcher;
+            this.segmentMatcher = segmentMatcher;
+        }
+
+        static GlobPattern compile(final String pathPattern) {
+            final Path rawPattern = Paths.get(pathPattern);
+            final Path absolutePattern = rawPattern.isAbsolute()
+                    ? rawPattern
+                    : WORKING_DIRECTORY.resolve(rawPattern);
+
+            final Path startDirectoryCandidate = determineStartDirectoryForGlob(rawPattern, absolutePattern);
+            final Path dirToStartWalking = resolveStartDirectoryForGlob(startDirectoryCandidate);
+
+            final String matcherPattern = sanitizeGlobPattern(absolutePattern);
+            final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + matcherPattern);
+
+            // |segmentMatcher| skips subtrees which never contain matching files, and limits the depth to walk when
+            // the pattern does not contain "**". It also decides whether a file matches by its name if it can, or
+            // |matcher| above decides it.
+            final GlobSegmentMatcher segmentMatcher = GlobSegmentMatcher.compile(absolutePattern);
+            return new GlobPattern(pathPattern, dirToStartWalking, matcher, segmentMatcher);
+        }
+
+        /**
+         * Returns {@code true} if {@code file} matches the pattern. {@code dirState} is the state of the directory
+         * containing {@code file} in {@link GlobSegmentMatcher}, or {@code null} if unknown.
+         */
+        boolean matches(final Path file, final String fileName, final BitSet dirState) {
+            if (this.segmentMatcher.isExact() && dirState != null) {
+                return this.segmentMatcher.matchesFile(dirState, fileName);
+            }
+            return this.segmentMatcher.mayMatchFileName(fileName) && this.matcher.matches(file);
+        }
+
+        @Override
+        public String toString() {
+            return this.pattern;
+        }
+
+        private final String pattern;
+        private final Path dirToStartWalking;
+        private final PathMatcher matcher;
+        private final GlobSegmentMatcher segmentMatcher;
+    }
+
+    /**
+     * Opens files of a task one by one on {@code nextFile()}.
+     *
+     * <p>{@code rangeStarts} and {@code rangeEnds} are byte ranges of the files, or {@code null} if no file is split.
+     *
+     * <p>Files are decompressed if {@code decompress} is {@code true}. BGZF files are decompressed block-parallel by
+     * {@code decompressThreads} threads if it is more than 1.
+     *
+     * <p>If {@code prefetchSize} is more than 0, the next file is opened, and its first {@code prefetchSize} bytes are
+     * read, in a background thread while the current file is read. At most one file is prefetched at a time.
+     */
+    private static class FilesProvider implements InputStreamTransactionalFileInput.Provider {
+        FilesProvider(
+                final List<String> files,
+                final List<Long> rangeStarts,
+                final List<Long> rangeEnds,
+                final boolean decompress,
+                final int decompressThreads,
+                final int prefetchSize) {
+            this.files = files;
+            this.rangeStarts = rangeStarts;
+            this.rangeEnds = rangeEnds;
+            this.decompress = decompress;
+            this.decompressThreads = decompressThreads;
+            this.prefetchSize = prefetchSize;
+            if (decompress && decompressThreads > 1) {
+                this.decompressExecutor = Executors.newFixedThreadPool(decompressThreads, runnable -> {
+                    final Thread thread = new Thread(runnable, "embulk-input-file_glob-decompress");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            } else {
+                this.decompressExecutor = null;
+            }
+            if (prefetchSize > 0 && files.size() > 1) {
+                this.prefetchExecutor = IoThreads.newExecutor("embulk-input-file_glob-prefetch", 1);
+            } else {
+                this.prefetchExecutor = null;
+            }
+            this.prefetching = null;
+            this.nextIndex = 0;
+            this.currentFile = null;
+        }
+
+        @Override
+        public InputStream openNext() throws IOException {
+            if (this.nextIndex >= this.files.size()) {
+                return null;
+            }
+            final int index = this.nextIndex++;
+            this.currentFile = new File(this.files.get(index));
+            final InputStream in;
+            if (this.prefetching != null) {
+                in = this.takePrefetched();
+            } else {
+                in = this.openFile(index);
+            }
+            if (this.prefetchExecutor != null && this.nextIndex < this.files.size()) {
+                final int prefetchIndex = this.nextIndex;
+                this.prefetching = this.prefetchExecutor.submit(() -> this.prefetch(prefetchIndex));
+            }
+            return in;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (this.prefetching != null) {
+                    // Wait for the file being prefetched not to leave it open.
+                    try (final InputStream unused = this.takePrefetched()) {
+                        // Just to close.
+                    } catch (final IOException ex) {
+                        logger.debug("Failed to prefetch a file not to be read.", ex);
+                    }
+                }
+            } finally {
+                if (this.prefetchExecutor != null) {
+                    this.prefetchExecutor.shutdownNow();
+                }
+                if (this.decompressExecutor != null) {
+                    this.decompressExecutor.shutdownNow();
+                }
+            }
+        }
+
+        Optional<File> getCurrentFile() {
+            return Optional.ofNullable(this.currentFile);
+        }
+
+        private InputStream openFile(final int index) throws IOException {
+            final File file = new File(this.files.get(index));
+            if (this.rangeStarts != null && this.rangeStarts.get(index) >= 0) {
+                return LineRangeInputStream.open(file, this.rangeStarts.get(index), this.rangeEnds.get(index));
+            }
+            final InputStream in = new FileInputStream(file);
+            if (!this.decompress) {
+                return in;
+            }
+            try {
+                // Two blocks in flight per thread keep the threads busy while the caller consumes a block.
+                return Decompression.open(in, this.decompressExecutor, this.decompressThreads * 2);
+            } catch (final IOException | RuntimeException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Opens a file, and reads its head into memory so that the first reads of the file do not wait for the device.
+         */
+        private InputStream prefetch(final int index) throws IOException {
+            final InputStream in = this.openFile(index);
+            try {
+                // Grown up to |prefetchSize| as it is read not to allocate the whole size for small files.
+                byte[] head = new byte[Math.min(this.prefetchSize, PREFETCH_INITIAL_SIZE)];
+                int read = 0;
+                while (true) {
+                    if (read == head.length) {
+                        if (head.length >= this.prefetchSize) {
+                            break;
+                        }
+                        head = Arrays.copyOf(head, (int) Math.min((long) head.length * 2, this.prefetchSize));
+                    }
+                    final int n = in.read(head, read, head.length - read);
+                    if (n < 0) {
+                        break;
+                    }
+                    read += n;
+                }
+                return new SequenceInputStream(new ByteArrayInputStream(head, 0, read), in);
+            } catch (final IOException | RuntimeException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+
+        private InputStream takePrefetched() throws IOException {
+            final Future<InputStream> prefetched = this.prefetching;
+            this.prefetching = null;
+            try {
+                return prefetched.get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while prefetching a file.", ex);
+            } catch (final ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new IOException("Failed to prefetch a file.", ex.getCause());
+            }
+        }
+
+        private final List<String> files;
+        private final List<Long> rangeStarts;
+        private final List<Long> rangeEnds;
+        private final boolean decompress;
+        private final int decompressThreads;
+        private final int prefetchSize;
+        private final ExecutorService decompressExecutor;
+        private final ExecutorService prefetchExecutor;
+
+        private Future<InputStream> prefetching;
+        private int nextIndex;
+        private File currentFile;
+    }
+
+    /**
+     * Writes paths of {@code files} into {@code manifestPath}, one path per line, streamed not to build the whole list.
+     */
+    private static void writeFileListManifest(final Path manifestPath, final List<ListedFile> files) {
+        try (final BufferedWriter writer = Files.newBufferedWriter(manifestPath, StandardCharsets.UTF_8)) {
+            for (final ListedFile file : files) {
+                writer.write(file.getPath());
+                writer.write('\n');
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Failed to write file list manifest '%s'", manifestPath), ex);
+        }
+        logger.info("Wrote file list manifest '{}' with {} files.", manifestPath, files.size());
+    }
+
+    private static List<ListedFile> splitFiles(final PluginTask task, final List<ListedFile> files) {
+        if (!task.getSplitSize().isPresent()) {
+            return files;
+        }
+        final ArrayList<ListedFile> splitFiles = new ArrayList<>();
+        for (final ListedFile file : files) {
+            splitFiles.addAll(file.split(task.getSplitSize().get()));
+        }
+        return splitFiles;
+    }
+
+    private static TaskPacker packFilesIntoTasks(final PluginTask task, final List<ListedFile> files) {
+        if (task.getTasks().isPresent()) {
+            return TaskPacker.byTaskCount(files, task.getTasks().get());
+        } else if (task.getMinTaskSize().isPresent() || task.getMaxTaskSize().isPresent()) {
+            return TaskPacker.bySize(files, task.getMinTaskSize().orElse(Long.MAX_VALUE), task.getMaxTaskSize().orElse(Long.MAX_VALUE));
+        }
+        return TaskPacker.onePerTask(files);
+    }
+
+    private static TaskPacker orderTasks(final PluginTask task, final TaskPacker packer) {
+        if (task.getTaskOrder() == TaskOrder.LARGEST_FIRST) {
+            return packer.largestFirst();
+        }
+        return packer;
+    }
+
     static List<String> listFilesForTesting(final PluginTask task) {
-        return listFiles(task);
+        final List<String> files = new ArrayList<>();
+        for (final ListedFile listedFile : listFiles(task, new ListingStats())) {
+            files.add(listedFile.getPath());
+        }
+        return files;
     }
 
     private static String getConfiguredPathPattern(final PluginTask task) {
@@ -159,15 +870,37 @@ public class FileGlobInputPlugin implements FileInputPlugin {
                 .orElseThrow(() -> new IllegalStateException("Either \"path_glob\" or \"path_prefix\" must be set."));
     }
 
-    private static List<String> listFiles(final PluginTask task) {
-        final String pathPattern = getConfiguredPathPattern(task);
-        if (containsGlobMeta(pathPattern)) {
-            return listFilesByGlob(task, pathPattern);
+    private static List<ListedFile> listFiles(final PluginTask task, final ListingStats stats) {
+        final long startedAt = System.nanoTime();
+        final String pathPattern = task.getPathGlobs().isPresent() ? null : getConfiguredPathPattern(task);
+        final ListingCache cache = task.getListingCachePath()
+                .map(cachePath -> ListingCache.load(Paths.get(cachePath), task.getFollowSymlinks()))
+                .orElse(null);
+        final ExcludeMatcher excludes = ExcludeMatcher.compile(task.getExcludeGlobs(), WORKING_DIRECTORY);
+        final FileAttributesFilter filter = newFileAttributesFilter(task, System.currentTimeMillis());
+        final List<ListedFile> files;
+        if (task.getPathGlobs().isPresent()) {
+            // Each of "path_globs" is a glob even without glob meta characters, unlike "path_glob".
+            files = listFilesByGlob(task, task.getPathGlobs().get(), excludes, filter, cache, stats);
+        } else if (containsGlobMeta(pathPattern)) {
+            files = listFilesByGlob(task, Collections.singletonList(pathPattern), excludes, filter, cache, stats);
+        } else {
+            files = listFilesByPrefix(task, pathPattern, excludes, filter, cache, stats);
+        }
+        if (cache != null) {
+            cache.save();
         }
-        return listFilesByPrefix(task, pathPattern);
+        stats.finish(files.size(), System.nanoTime() - startedAt);
+        return files;
     }
 
-    private static List<String> listFilesByPrefix(final PluginTask task, final String pathWithoutGlob) {
+    private static List<ListedFile> listFilesByPrefix(
+            final PluginTask task,
+            final String pathWithoutGlob,
+            final ExcludeMatcher excludes,
+            final FileAttributesFilter filter,
+            final ListingCache cache,
+            final ListingStats stats) {
         // This |pathPrefixResolved| can still be a relative path from the working directory.
         // The path should not be normalized by Path#normalize to eliminate redundant name elements like "." and "..".
         final Path pathPrefixResolved = WORKING_DIRECTORY.resolve(Paths.get(pathWithoutGlob));
@@ -203,8 +936,8 @@ public class FileGlobInputPlugin implements FileInputPlugin {
         final PathMatcher baseFileNameMatcher = buildPathMatcherForBaseFileNamePrefix(baseFileNamePrefix);
         final PathMatcher dirNameMatcher = buildPathMatcherForDirectory(dirToMatch);
 
-        final ArrayList<String> filesFound = new ArrayList<>();
-        final String lastPath = task.getLastPath().orElse(null);
+        final FoundFiles filesFound = newFoundFiles(task, cache);
+        final String lastPath = lastPathOf(task);
         try {
             logger.info("Listing local files at directory '{}' filtering filename by prefix '{}'",
                         dirToMatch.equals(WORKING_DIRECTORY) ? "." : dirToMatch.toString(),
@@ -223,7 +956,7 @@ public class FileGlobInputPlugin implements FileInputPlugin {
             // * Linux: Case sensitive. It does not walk from "/FOO" when |dirToStartWalking| == "/foo".
             // * MacOSX: Case insensitive. It walks from "/FOO" when |dirToStartWalking| == "/foo".
             // * Windows: Case insensitive. It walks from "/FOO" when |dirToStartWalking| == "/foo".
-            Files.walkFileTree(dirToStartWalking, visitOptions, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            walkFileTree(task, cache, stats, dirToStartWalking, visitOptions, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
                     @Override
                     public FileVisitResult preVisitDirectory(final Path dirOnVisit, final BasicFileAttributes attrs) {
                         // NOTE: This |dirOnVisit| contains the path elements of |dirToStartWalking|.
@@ -232,6 +965,8 @@ public class FileGlobInputPlugin implements FileInputPlugin {
                         } else if (lastPath != null && dirOnVisit.toString().compareTo(lastPath) <= 0) {
                             // TODO(dmikurube): Consider |Path#compareTo| instead of |String#compareTo|.
                             return FileVisitResult.SKIP_SUBTREE;
+                        } else if (excludes.excludesDirectory(dirOnVisit)) {
+                            return FileVisitResult.SKIP_SUBTREE;
                         } else if (!dirNameMatcher.matches(dirOnVisit)) {
                             // |PathMatcher| (|dirNameMatcher|) matches paths in the following manners.
                             //
@@ -262,20 +997,16 @@ public class FileGlobInputPlugin implements FileInputPlugin {
                     @Override
                     public FileVisitResult visitFile(final Path fileOnVisit, final BasicFileAttributes attrs) {
                         // NOTE: This |fileOnVisit| contains the path elements of |dirToStartWalking|.
-                        try {
-                            // Avoid directories from listing.
-                            // Directories are normally unvisited with |FileVisitor#visitFile|, but symbolic links to
-                            // directories are visited like files unless |FOLLOW_LINKS| is set in |Files#walkFileTree|.
-                            // Symbolic links to directories are explicitly skipped here by checking with |Path#toReadlPath|.
-                            if (Files.isDirectory(fileOnVisit.toRealPath())) {
-                                return FileVisitResult.CONTINUE;
-                            }
-                        } catch (IOException ex) {
-                            throw new RuntimeException("Can't resolve symbolic link", ex);
+                        // Avoid directories from listing.
+                        final BasicFileAttributes fileAttrs = readAttributesOnVisit(fileOnVisit, attrs);
+                        if (fileAttrs.isDirectory()) {
+                            return FileVisitResult.CONTINUE;
                         }
                         if (lastPath != null && fileOnVisit.toString().compareTo(lastPath) <= 0) {
                             // TODO(dmikurube): Consider |Path#compareTo| instead of |String#compareTo|.
                             return FileVisitResult.CONTINUE;
+                        } else if (excludes.excludesFile(fileOnVisit) || !filter.accepts(fileOnVisit, fileAttrs)) {
+                            return FileVisitResult.CONTINUE;
                         } else if (!dirNameMatcher.matches(fileOnVisit)) {
                             // Rejecting case-unmatching paths on OSX in the same way with |preVisitDirectory| above.
                             return FileVisitResult.CONTINUE;
@@ -283,11 +1014,11 @@ public class FileGlobInputPlugin implements FileInputPlugin {
                             final Path parent = Optional.ofNullable(fileOnVisit.getParent()).orElse(WORKING_DIRECTORY);
                             if (parent.equals(dirToStartWalking)) {
                                 if (baseFileNameMatcher.matches(fileOnVisit.getFileName())) {
-                                    filesFound.add(fileOnVisit.toString());
+                                    filesFound.add(fileOnVisit, fileAttrs);
                                     return FileVisitResult.CONTINUE;
                                 }
                             } else {
-                                filesFound.add(fileOnVisit.toString());
+                                filesFound.add(fileOnVisit, fileAttrs);
                             }
                             return FileVisitResult.CONTINUE;
                         }
@@ -296,24 +1027,43 @@ public class FileGlobInputPlugin implements FileInputPlugin {
         } catch (IOException ex) {
             throw new RuntimeException(String.format("Failed get a list of local files at '%s'", dirToMatch), ex);
         }
-        return Collections.unmodifiableList(filesFound);
+        return toFileList(task, cache, filesFound);
     }
 
-    private static List<String> listFilesByGlob(final PluginTask task, final String pathPattern) {
-        final Path rawPattern = Paths.get(pathPattern);
-        final Path absolutePattern = rawPattern.isAbsolute()
-                ? rawPattern
-                : WORKING_DIRECTORY.resolve(rawPattern);
-
-        final Path startDirectoryCandidate = determineStartDirectoryForGlob(rawPattern, absolutePattern);
-        final Path dirToStartWalking = resolveStartDirectoryForGlob(startDirectoryCandidate);
+    /**
+     * Lists files matching any of {@code pathPatterns} in a single walk from the deepest directory common to them.
+     */
+    private static List<ListedFile> listFilesByGlob(
+            final PluginTask task,
+            final List<String> pathPatterns,
+            final ExcludeMatcher excludes,
+            final FileAttributesFilter filter,
+            final ListingCache cache,
+            final ListingStats stats) {
+        final ArrayList<GlobPattern> patterns = new ArrayList<>(pathPatterns.size());
+        for (final String pathPattern : pathPatterns) {
+            patterns.add(GlobPattern.compile(pathPattern));
+        }
+        final Path dirToStartWalking = commonStartDirectory(patterns);
+        int maxDepth = 0;
+        for (final GlobPattern pattern : patterns) {
+            maxDepth = Math.max(maxDepth, pattern.segmentMatcher.maxDepthFrom(countNames(dirToStartWalking)));
+        }
 
-        final String matcherPattern = sanitizeGlobPattern(absolutePattern);
-        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + matcherPattern);
+        // The states of |GlobSegmentMatcher| of the patterns are kept per directory, not in a stack, so that
+        // directories can be walked in parallel.
+        final ConcurrentHashMap<Path, BitSet[]> segmentStates = new ConcurrentHashMap<>();
 
-        final ArrayList<String> filesFound = new ArrayList<>();
-        final String lastPath = task.getLastPath().orElse(null);
-        logger.info("Listing local files matching glob '{}'", pathPattern);
+        final FoundFiles filesFound = newFoundFiles(task, cache);
+        final String lastPath = lastPathOf(task);
+        if (pathPatterns.size() == 1) {
+            logger.info("Listing local files matching glob '{}'", pathPatterns.get(0));
+        } else {
+            logger.info("Listing local files matching any of globs {}", pathPatterns);
+        }
+        if (!excludes.isEmpty()) {
+            logger.info("Excluding local files matching any of globs {}", task.getExcludeGlobs());
+        }
 
         final Set<FileVisitOption> visitOptions;
         if (task.getFollowSymlinks()) {
@@ -324,40 +1074,201 @@ public class FileGlobInputPlugin implements FileInputPlugin {
         }
 
         try {
-            Files.walkFileTree(dirToStartWalking, visitOptions, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            walkFileTree(task, cache, stats, dirToStartWalking, visitOptions, maxDepth, new SimpleFileVisitor<Path>() {
                     @Override
                     public FileVisitResult preVisitDirectory(final Path dirOnVisit, final BasicFileAttributes attrs) {
                         if (dirOnVisit.equals(dirToStartWalking)) {
+                            final BitSet[] states = new BitSet[patterns.size()];
+                            for (int i = 0; i < states.length; i++) {
+                                states[i] = patterns.get(i).segmentMatcher.stateOf(dirToStartWalking);
+                            }
+                            segmentStates.put(dirOnVisit, states);
                             return FileVisitResult.CONTINUE;
                         }
                         if (lastPath != null && dirOnVisit.toString().compareTo(lastPath) <= 0) {
                             return FileVisitResult.SKIP_SUBTREE;
                         }
+                        if (excludes.excludesDirectory(dirOnVisit)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        final Path parent = Optional.ofNullable(dirOnVisit.getParent()).orElse(WORKING_DIRECTORY);
+                        final BitSet[] parentStates = segmentStates.get(parent);
+                        final BitSet[] states = new BitSet[patterns.size()];
+                        boolean canMatchBelow = false;
+                        for (int i = 0; i < states.length; i++) {
+                            final GlobSegmentMatcher segmentMatcher = patterns.get(i).segmentMatcher;
+                            states[i] = segmentMatcher.advance(parentStates[i], dirOnVisit.getFileName());
+                            canMatchBelow |= segmentMatcher.canMatchBelow(states[i]);
+                        }
+                        if (!canMatchBelow) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        // |postVisitDirectory| is called only for directories which are not skipped here.
+                        segmentStates.put(dirOnVisit, states);
                         return FileVisitResult.CONTINUE;
                     }
 
+                    @Override
+                    public FileVisitResult postVisitDirectory(final Path dirOnVisit, final IOException ex) throws IOException {
+                        segmentStates.remove(dirOnVisit);
+                        return super.postVisitDirectory(dirOnVisit, ex);
+                    }
+
                     @Override
                     public FileVisitResult visitFile(final Path fileOnVisit, final BasicFileAttributes attrs) {
-                        try {
-                            if (Files.isDirectory(fileOnVisit.toRealPath())) {
-                                return FileVisitResult.CONTINUE;
-                            }
-                        } catch (IOException ex) {
-                            throw new RuntimeException("Can't resolve symbolic link", ex);
+                        final BasicFileAttributes fileAttrs = readAttributesOnVisit(fileOnVisit, attrs);
+                        if (fileAttrs.isDirectory()) {
+                            return FileVisitResult.CONTINUE;
                         }
                         if (lastPath != null && fileOnVisit.toString().compareTo(lastPath) <= 0) {
                             return FileVisitResult.CONTINUE;
                         }
-                        if (matcher.matches(fileOnVisit)) {
-                            filesFound.add(fileOnVisit.toString());
+                        // A file is found only once even if it matches multiple patterns.
+                        if (matchesAnyPattern(fileOnVisit)
+                                && !excludes.excludesFile(fileOnVisit)
+                                && filter.accepts(fileOnVisit, fileAttrs)) {
+                            filesFound.add(fileOnVisit, fileAttrs);
                         }
                         return FileVisitResult.CONTINUE;
                     }
+
+                    private boolean matchesAnyPattern(final Path fileOnVisit) {
+                        final String fileName = fileOnVisit.getFileName().toString();
+                        final Path parent = Optional.ofNullable(fileOnVisit.getParent()).orElse(WORKING_DIRECTORY);
+                        final BitSet[] dirStates = segmentStates.get(parent);
+                        for (int i = 0; i < patterns.size(); i++) {
+                            if (patterns.get(i).matches(fileOnVisit, fileName, (dirStates == null) ? null : dirStates[i])) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
                 });
         } catch (IOException ex) {
-            throw new RuntimeException(String.format("Failed get a list of local files with glob '%s'", pathPattern), ex);
+            throw new RuntimeException(String.format("Failed get a list of local files with glob %s", pathPatterns), ex);
+        }
+        return toFileList(task, cache, filesFound);
+    }
+
+    /**
+     * Returns the deepest directory which contains the start directories of all the patterns.
+     */
+    private static Path commonStartDirectory(final List<GlobPattern> patterns) {
+        Path common = patterns.get(0).dirToStartWalking;
+        for (final GlobPattern pattern : patterns.subList(1, patterns.size())) {
+            final Path other = pattern.dirToStartWalking;
+            if (common.isAbsolute() != other.isAbsolute() || !Objects.equals(common.getRoot(), other.getRoot())) {
+                throw new ConfigException("\"path_globs\" must be all absolute or all relative on the same root: " + patterns);
+            }
+            Path shared = (common.getRoot() != null) ? common.getRoot() : WORKING_DIRECTORY;
+            for (int i = 0; i < Math.min(countNames(common), countNames(other)); i++) {
+                if (!common.getName(i).equals(other.getName(i))) {
+                    break;
+                }
+                shared = shared.resolve(common.getName(i));
+            }
+            common = shared;
+        }
+        return common;
+    }
+
+    /**
+     * Walks a file tree with {@link SortedFileTreeWalker}, or with {@link ParallelFileTreeWalker} if "listing_threads" is
+     * more than 1 or "listing_cache_path" is set.
+     */
+    private static void walkFileTree(
+            final PluginTask task,
+            final ListingCache cache,
+            final ListingStats stats,
+            final Path start,
+            final Set<FileVisitOption> options,
+            final int maxDepth,
+            final FileVisitor<Path> visitor) throws IOException {
+        if (isWalkedByParallelWalker(task, cache)) {
+            ParallelFileTreeWalker.walkFileTree(
+                    start, options, maxDepth, stats.count(visitor, false), task.getListingThreads(), cache, stats);
+        } else {
+            SortedFileTreeWalker.walkFileTree(start, options, maxDepth, stats.count(visitor, true), task.getStatThreads());
+        }
+    }
+
+    private static boolean isWalkedByParallelWalker(final PluginTask task, final ListingCache cache) {
+        return task.getListingThreads() > 1 || cache != null;
+    }
+
+    private static FoundFiles newFoundFiles(final PluginTask task, final ListingCache cache) {
+        return new FoundFiles(isWalkedByParallelWalker(task, cache), task.getDeduplicateByFileKey());
+    }
+
+    private static List<ListedFile> toFileList(final PluginTask task, final ListingCache cache, final FoundFiles filesFound) {
+        // Files are found in no particular order by ParallelFileTreeWalker. They are sorted to be deterministic.
+        // SortedFileTreeWalker has found them in the same order already.
+        final List<ListedFile> files = filesFound.toList(isWalkedByParallelWalker(task, cache));
+        if (filesFound.getDuplicates() > 0) {
+            logger.info("Skipped {} files which are the same as other files listed by their file keys.", filesFound.getDuplicates());
+        }
+        return files;
+    }
+
+    /**
+     * Returns attributes of a path visited by {@link java.nio.file.FileVisitor#visitFile}, following a symbolic link.
+     *
+     * <p>Directories are normally unvisited with {@code FileVisitor#visitFile}, but symbolic links to directories are
+     * visited like files unless {@code FOLLOW_LINKS} is set in {@code Files#walkFileTree}. Directories at the maximum
+     * depth are also visited like files. Symbolic links to files are filtered and packed by the sizes of their targets.
+     *
+     * <p>It returns {@code attrs} given by the walker as-is so that regular files do not need extra system calls. Only
+     * symbolic links are read again.
+     */
+    private static BasicFileAttributes readAttributesOnVisit(final Path fileOnVisit, final BasicFileAttributes attrs) {
+        if (!attrs.isSymbolicLink()) {
+            return attrs;
+        }
+        try {
+            return Files.readAttributes(fileOnVisit, BasicFileAttributes.class);
+        } catch (final IOException ex) {
+            throw new RuntimeException("Can't resolve symbolic link", ex);
+        }
+    }
+
+    /**
+     * Creates a filter of files by "min_size", "max_size", "modified_after", "modified_before" and "min_age", and by
+     * the watermark of "incremental_mode: mtime".
+     *
+     * <p>"min_age" is counted back from {@code nowMillis}, the time when listing starts, so that all the files are
+     * filtered with the same threshold however long listing takes.
+     */
+    static FileAttributesFilter newFileAttributesFilter(final PluginTask task, final long nowMillis) {
+        return new FileAttributesFilter(
+                task.getMinSize().orElse(0L),
+                task.getMaxSize().orElse(Long.MAX_VALUE),
+                task.getModifiedAfter().map(value -> parseTimestampMillis("modified_after", value)).orElse(Long.MIN_VALUE),
+                task.getModifiedBefore().map(value -> parseTimestampMillis("modified_before", value)).orElse(Long.MAX_VALUE),
+                task.getMinAge().map(minAge -> nowMillis - TimeUnit.SECONDS.toMillis(minAge)).orElse(Long.MAX_VALUE),
+                (task.getIncrementalMode() == IncrementalMode.MTIME) ? watermarkOf(task) : null);
+    }
+
+    private static ModifiedTimeWatermark watermarkOf(final PluginTask task) {
+        return ModifiedTimeWatermark.of(task.getLastModifiedTime(), task.getLastModifiedPaths());
+    }
+
+    /**
+     * Returns "last_path" to skip files by, or {@code null}. It is ignored with "incremental_mode: mtime".
+     */
+    private static String lastPathOf(final PluginTask task) {
+        if (task.getIncrementalMode() == IncrementalMode.MTIME) {
+            return null;
+        }
+        return task.getLastPath().orElse(null);
+    }
+
+    private static long parseTimestampMillis(final String name, final String value) {
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (final DateTimeParseException ex) {
+            throw new ConfigException(
+                    "\"" + name + "\" must be an ISO-8601 date-time with an offset, such as \"2026-01-31T12:00:00Z\": " + value, ex);
         }
-        return Collections.unmodifiableList(filesFound);
     }
 
     private static boolean containsGlobMeta(final String value) {
@@ -370,6 +1281,14 @@ public class FileGlobInputPlugin implements FileInputPlugin {
         return false;
     }
 
+    private static int countNames(final Path path) {
+        // An empty path, the working directory, still has one empty name element.
+        if (path.toString().isEmpty()) {
+            return 0;
+        }
+        return path.getNameCount();
+    }
+
     private static Path determineStartDirectoryForGlob(final Path rawPattern, final Path absolutePattern) {
         final int nameCount = rawPattern.getNameCount();
         int prefixLength = nameCount;
@@ -479,8 +1398,11 @@ public class FileGlobInputPlugin implements FileInputPlugin {
      * <p>{@code Path.toRealPath} looks to work to get a case-sensitive real path, but it may unintentionally resolve
      * symbolic links when resolving a case-sensitivity difference. To keep the option "follow_symlinks" working as
      * intended, a method to resolve cases without resolving symbolic links is required.
+     *
+     * <p>A path element is looked up directly if its case is already exact, typically in a case-sensitive directory.
+     * Only otherwise, the parent directory is enumerated to find the element case-insensitively.
      */
-    private static Path getRealCasePathOfDirectoryNoFollowLinks(final Path dirNormalized) {
+    static Path getRealCasePathOfDirectoryNoFollowLinks(final Path dirNormalized) {
         Path built;
         if (dirNormalized.isAbsolute()) {
             built = dirNormalized.getRoot();
@@ -498,6 +1420,11 @@ public class FileGlobInputPlugin implements FileInputPlugin {
 
             final Path startPath = built;
             final String pathElementString = pathElement.toString();
+            final Path exactCasePath = built.resolve(pathElement);
+            if (isDirectoryInExactCase(built, pathElementString, exactCasePath)) {
+                built = exactCasePath;
+                continue;
+            }
             final ArrayList<Path> found = new ArrayList<>();
 
             // FOLLOW_LINKS is intentionally set here. Imagine files on the file system are as below:
@@ -556,8 +1483,59 @@ public class FileGlobInputPlugin implements FileInputPlugin {
         return built;
     }
 
+    /**
+     * Returns {@code true} if {@code path}, which is {@code name} in {@code parent}, is a directory, and its case is
+     * the same as the real file system. The result is the same as enumerating {@code parent} to find {@code name}.
+     *
+     * <p>It tells with a lookup of {@code name} in the swapped case, instead of enumerating {@code parent}. If the
+     * swapped name is not found, or is found as another file, the lookup in {@code parent} is case-sensitive. The
+     * case-sensitivity is checked for each directory, not for each {@link java.nio.file.FileStore}, because it can be
+     * configured per directory on some file systems, such as ext4 with casefold.
+     */
+    private static boolean isDirectoryInExactCase(final Path parent, final String name, final Path path) {
+        // FOLLOW_LINKS as getRealCasePathOfDirectoryNoFollowLinks walks with FOLLOW_LINKS.
+        if (!Files.isDirectory(path)) {
+            return false;
+        }
+        final String swapped = swapCase(name);
+        if (swapped.equals(name)) {
+            // The case cannot be told by swapping. A name without letters, such as "2026", has no other cases.
+            return name.codePoints().noneMatch(Character::isLetter);
+        }
+        final Path swappedPath = parent.resolve(swapped);
+        if (!Files.exists(swappedPath, LinkOption.NOFOLLOW_LINKS)) {
+            return true;
+        }
+        try {
+            return !Files.isSameFile(path, swappedPath);
+        } catch (final IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Swaps cases of letters in {@code name}. Letters which do not come back by swapping twice, such as dotless i,
+     * are kept as they are.
+     */
+    private static String swapCase(final String name) {
+        final StringBuilder swapped = new StringBuilder(name.length());
+        name.codePoints().forEach(c -> {
+            final int other = Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c);
+            final int back = Character.isUpperCase(other) ? Character.toLowerCase(other) : Character.toUpperCase(other);
+            swapped.appendCodePoint(back == c ? other : c);
+        });
+        return swapped.toString();
+    }
+
     private static final ConfigMapperFactory CONFIG_MAPPER_FACTORY = ConfigMapperFactory.builder().addDefaultModules().build();
 
+    private static final MappedTaskCache<PluginTask> OPENED_TASKS = new MappedTaskCache<>(
+            taskSource -> CONFIG_MAPPER_FACTORY.createTaskMapper().map(taskSource, PluginTask.class), "TransactionId");
+
+    private static final int DECOMPRESS_READ_AHEAD_BUFFERS = 4;
+
+    private static final int PREFETCH_INITIAL_SIZE = 64 * 1024;
+
     // Java expects the working directory does not change during an execution.
     // @see <a href="https://bugs.java.com/bugdatabase/view_bug.do?bug_id=4045688">Bug ID: JDK-4045688 Add chdir or equivalent notion of changing working directory</a>
     private static final Path WORKING_DIRECTORY = Paths.get("").normalize();
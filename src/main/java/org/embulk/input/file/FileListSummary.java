@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A summary of files listed, to be logged instead of the whole list, which can be huge.
+ *
+ * <p>The first and the last paths are in the order of the list. The sample is taken at even intervals over the list
+ * so that it shows the range of the listed files.
+ */
+final class FileListSummary {
+    private FileListSummary(
+            final int count, final long totalBytes, final String firstPath, final String lastPath, final List<String> sample) {
+        this.count = count;
+        this.totalBytes = totalBytes;
+        this.firstPath = firstPath;
+        this.lastPath = lastPath;
+        this.sample = Collections.unmodifiableList(sample);
+    }
+
+    static FileListSummary of(final List<ListedFile> files, final int sampleSize) {
+        long totalBytes = 0L;
+        for (final ListedFile file : files) {
+            totalBytes += file.getSize();
+        }
+        final int count = files.size();
+        final int taken = Math.min(count, sampleSize);
+        final ArrayList<String> sample = new ArrayList<>(taken);
+        for (int i = 0; i < taken; i++) {
+            sample.add(files.get((int) ((long) i * count / taken)).getPath());
+        }
+        if (count == 0) {
+            return new FileListSummary(0, 0L, null, null, sample);
+        }
+        return new FileListSummary(count, totalBytes, files.get(0).getPath(), files.get(count - 1).getPath(), sample);
+    }
+
+    int getCount() {
+        return this.count;
+    }
+
+    long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    String getFirstPath() {
+        return this.firstPath;
+    }
+
+    String getLastPath() {
+        return this.lastPath;
+    }
+
+    List<String> getSample() {
+        return this.sample;
+    }
+
+    @Override
+    public String toString() {
+        if (this.count == 0) {
+            return "no files";
+        }
+        return String.format("%d files of %d bytes in total, from '%s' to '%s', sampled: %s",
+                             this.count,
+                             this.totalBytes,
+                             this.firstPath,
+                             this.lastPath,
+                             this.sample);
+    }
+
+    private final int count;
+    private final long totalBytes;
+    private final String firstPath;  // null if no files.
+    private final String lastPath;  // null if no files.
+    private final List<String> sample;
+}
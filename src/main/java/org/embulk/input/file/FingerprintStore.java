@@ -0,0 +1,240 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.embulk.config.ConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fingerprints of files loaded in earlier runs, stored on disk to skip the same files even if they are renamed.
+ *
+ * <p>A fingerprint is the size and the modification time of a file, and a SHA-256 hash of samples of its content at
+ * the head, the middle and the tail. Without samples ({@code sampleSize} is 0), the file key of the file, such as its
+ * device and inode numbers, is used instead of the hash, so that a different file of the same size modified at the same
+ * time is not skipped. Renaming or moving a file in the same file system keeps its fingerprint in both ways.
+ *
+ * <p>Fingerprints of files to load in a run are written into a pending file next to the store on listing. The pending
+ * file replaces the store by {@link #commitPending(Path)} only after all the tasks succeed, so that files of a failed
+ * run are loaded again in the next run.
+ */
+final class FingerprintStore {
+    private FingerprintStore(final Path storePath, final int sampleSize, final Set<String> fingerprints) {
+        this.storePath = storePath;
+        this.sampleSize = sampleSize;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Loads the store from {@code storePath}. It starts with an empty store if the file does not exist.
+     */
+    static FingerprintStore load(final Path storePath, final int sampleSize) {
+        if (!Files.exists(storePath)) {
+            logger.info("Fingerprint store '{}' does not exist yet.", storePath);
+            return new FingerprintStore(storePath, sampleSize, new HashSet<>());
+        }
+        final Manifest manifest;
+        try {
+            manifest = MAPPER.readValue(storePath.toFile(), Manifest.class);
+        } catch (final IOException ex) {
+            // Not to load all the files again silently.
+            throw new UncheckedIOException(String.format("Failed to read fingerprint store '%s'", storePath), ex);
+        }
+        if (manifest.version != VERSION || manifest.fingerprints == null) {
+            throw new ConfigException(String.format("Fingerprint store '%s' is in an unsupported format.", storePath));
+        }
+        if (manifest.sampleSize != sampleSize) {
+            throw new ConfigException(String.format(
+                    "\"fingerprint_sample_size\" is %d but fingerprint store '%s' was created with %d.",
+                    sampleSize, storePath, manifest.sampleSize));
+        }
+        logger.info("Loaded fingerprint store '{}' with {} fingerprints.", storePath, manifest.fingerprints.size());
+        return new FingerprintStore(storePath, sampleSize, new HashSet<>(manifest.fingerprints));
+    }
+
+    /**
+     * Returns files whose fingerprints are not in the store, and adds their fingerprints to the store.
+     *
+     * <p>Files are compared only with the store as it is loaded. Files in {@code files} with the same fingerprint are
+     * all returned, because they are at different paths listed in the same run, which are different files unless
+     * {@code deduplicate_by_file_key} finds them the same.
+     */
+    List<ListedFile> filterNew(final List<ListedFile> files) {
+        final ArrayList<ListedFile> newFiles = new ArrayList<>();
+        final ArrayList<String> newFingerprints = new ArrayList<>();
+        for (final ListedFile file : files) {
+            final String fingerprint = this.fingerprintOf(file);
+            if (!this.fingerprints.contains(fingerprint)) {
+                newFiles.add(file);
+                newFingerprints.add(fingerprint);
+            }
+        }
+        this.fingerprints.addAll(newFingerprints);
+        if (newFiles.size() < files.size()) {
+            logger.info("Skipped {} files with fingerprints in fingerprint store '{}'.", files.size() - newFiles.size(), this.storePath);
+        }
+        return Collections.unmodifiableList(newFiles);
+    }
+
+    /**
+     * Saves the store with fingerprints added in this run into the pending file.
+     */
+    void savePending() {
+        final Manifest manifest = new Manifest();
+        manifest.version = VERSION;
+        manifest.sampleSize = this.sampleSize;
+        manifest.fingerprints = new ArrayList<>(this.fingerprints);
+        Collections.sort(manifest.fingerprints);
+        final Path pendingPath = pendingPathOf(this.storePath);
+        try {
+            final Path parent = pendingPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path temporary = Files.createTempFile(parent, pendingPath.getFileName().toString(), ".tmp");
+            try {
+                MAPPER.writeValue(temporary.toFile(), manifest);
+                Files.move(temporary, pendingPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Failed to write fingerprint store '%s'", pendingPath), ex);
+        }
+    }
+
+    /**
+     * Replaces the store at {@code storePath} with its pending file if it exists.
+     */
+    static void commitPending(final Path storePath) {
+        final Path pendingPath = pendingPathOf(storePath);
+        if (!Files.exists(pendingPath)) {
+            return;
+        }
+        try {
+            Files.move(pendingPath, storePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Failed to update fingerprint store '%s'", storePath), ex);
+        }
+        logger.info("Updated fingerprint store '{}'.", storePath);
+    }
+
+    private String fingerprintOf(final ListedFile file) {
+        final String sizeAndTime = file.getSize() + "-" + file.getLastModifiedTime().toMillis();
+        if (this.sampleSize == 0) {
+            return sizeAndTime + "-" + fileKeyOf(Paths.get(file.getPath()));
+        }
+        return sizeAndTime + "-" + this.hashSamplesOf(Paths.get(file.getPath()), file.getSize());
+    }
+
+    /**
+     * Returns the file key of {@code path}, or an empty string on a file system which does not provide file keys.
+     */
+    private static String fileKeyOf(final Path path) {
+        final Object fileKey;
+        try {
+            fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Failed to read '%s' to fingerprint", path), ex);
+        }
+        return (fileKey == null) ? "" : fileKey.toString();
+    }
+
+    private String hashSamplesOf(final Path path, final long size) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is always available in Java.", ex);
+        }
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(this.sampleSize);
+            if (size <= 3L * this.sampleSize) {
+                for (long position = 0; position < size; position += this.sampleSize) {
+                    digestSample(channel, buffer, position, digest);
+                }
+            } else {
+                digestSample(channel, buffer, 0, digest);
+                digestSample(channel, buffer, (size - this.sampleSize) / 2, digest);
+                digestSample(channel, buffer, size - this.sampleSize, digest);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Failed to read '%s' to fingerprint", path), ex);
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void digestSample(
+            final FileChannel channel, final ByteBuffer buffer, final long position, final MessageDigest digest) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        digest.update(buffer);
+    }
+
+    private static Path pendingPathOf(final Path storePath) {
+        return storePath.resolveSibling(storePath.getFileName().toString() + ".pending");
+    }
+
+    static final class Manifest {
+        @JsonProperty("version")
+        int version;
+
+        @JsonProperty("sample_size")
+        int sampleSize;
+
+        @JsonProperty("fingerprints")
+        List<String> fingerprints;
+    }
+
+    private static final int VERSION = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Logger logger = LoggerFactory.getLogger(FingerprintStore.class);
+
+    private final Path storePath;
+    private final int sampleSize;
+    private final Set<String> fingerprints;
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Files found on listing, added from the walking thread, or from multiple threads if {@code concurrent}.
+ *
+ * <p>If {@code deduplicatesByFileKey}, files with the same {@link BasicFileAttributes#fileKey()}, such as the device and
+ * the inode on POSIX, are the same physical file found through hard links or symbolic links. Only the one with the
+ * least path is kept so that the result does not depend on the order of the walk. Files without file keys are all
+ * kept.
+ */
+final class FoundFiles {
+    FoundFiles(final boolean concurrent, final boolean deduplicatesByFileKey) {
+        this.files = concurrent ? new ConcurrentLinkedQueue<>() : new ArrayList<>();
+        this.leastPathsByFileKey = deduplicatesByFileKey ? new ConcurrentHashMap<>() : null;
+        this.duplicatePaths = deduplicatesByFileKey ? ConcurrentHashMap.newKeySet() : null;
+    }
+
+    void add(final Path path, final BasicFileAttributes attrs) {
+        final ListedFile file = ListedFile.of(path, attrs);
+        this.files.add(file);
+        if (this.leastPathsByFileKey == null) {
+            return;
+        }
+        final Object fileKey = attrs.fileKey();
+        if (fileKey != null) {
+            this.leastPathsByFileKey.merge(fileKey, file.getPath(), (found, adding) -> {
+                // Called once for each duplicate atomically.
+                if (found.compareTo(adding) <= 0) {
+                    this.duplicatePaths.add(adding);
+                    return found;
+                }
+                this.duplicatePaths.add(found);
+                return adding;
+            });
+        }
+    }
+
+    /**
+     * Returns the files found without duplicates, in lexicographic order of their paths if {@code sorts}.
+     */
+    List<ListedFile> toList(final boolean sorts) {
+        final ArrayList<ListedFile> list = new ArrayList<>(this.files.size());
+        for (final ListedFile file : this.files) {
+            if (this.duplicatePaths == null || !this.duplicatePaths.contains(file.getPath())) {
+                list.add(file);
+            }
+        }
+        if (sorts) {
+            list.sort(Comparator.comparing(ListedFile::getPath));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns the number of files dropped as duplicates.
+     */
+    int getDuplicates() {
+        return (this.duplicatePaths == null) ? 0 : this.duplicatePaths.size();
+    }
+
+    private final Collection<ListedFile> files;
+    private final ConcurrentHashMap<Object, String> leastPathsByFileKey;  // null if not deduplicating.
+    private final Set<String> duplicatePaths;  // null if not deduplicating.
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+
+/**
+ * Matches a file name against a glob pattern of a single path element.
+ *
+ * <p>Common patterns are matched by comparing literal strings: {@code "name"}, {@code "*"}, {@code "*.json.gz"},
+ * {@code "part-*"} and {@code "part-*.gz"}. Other patterns are matched by the regular {@link PathMatcher}, after a
+ * cheap check of the literal prefix and suffix of the pattern.
+ *
+ * <p>Letter cases are ignored on Windows as the regular {@link PathMatcher} does.
+ */
+final class GlobNameMatcher {
+    private GlobNameMatcher(final String prefix, final String suffix, final boolean wildcard, final PathMatcher fallback) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.wildcard = wildcard;
+        this.fallback = fallback;
+    }
+
+    static GlobNameMatcher compile(final String glob) {
+        final int firstMeta = indexOfMeta(glob);
+        if (firstMeta < 0) {
+            return new GlobNameMatcher(glob, "", false, null);
+        }
+        final int lastMeta = lastIndexOfMeta(glob);
+        final String prefix = glob.substring(0, firstMeta);
+        final String suffix = glob.substring(lastMeta + 1);
+        if (firstMeta == lastMeta && glob.charAt(firstMeta) == '*') {
+            return new GlobNameMatcher(prefix, suffix, true, null);
+        }
+        return new GlobNameMatcher(prefix, suffix, true, FileSystems.getDefault().getPathMatcher("glob:" + glob));
+    }
+
+    boolean matches(final String name) {
+        if (!this.wildcard) {
+            return name.length() == this.prefix.length() && startsWith(name, this.prefix);
+        }
+        if (name.length() < this.prefix.length() + this.suffix.length()
+                || !startsWith(name, this.prefix)
+                || !endsWith(name, this.suffix)) {
+            return false;
+        }
+        return this.fallback == null || this.fallback.matches(Paths.get(name));
+    }
+
+    private static boolean startsWith(final String name, final String literal) {
+        return name.regionMatches(IGNORE_CASE, 0, literal, 0, literal.length());
+    }
+
+    private static boolean endsWith(final String name, final String literal) {
+        return name.regionMatches(IGNORE_CASE, name.length() - literal.length(), literal, 0, literal.length());
+    }
+
+    private static int indexOfMeta(final String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            if (META_CHARACTERS.indexOf(glob.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int lastIndexOfMeta(final String glob) {
+        for (int i = glob.length() - 1; i >= 0; i--) {
+            if (META_CHARACTERS.indexOf(glob.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // A backslash is an escape in a glob, or a separator on Windows. Either way, it is not compared literally.
+    private static final String META_CHARACTERS = "*?[]{}\\";
+
+    // PathMatcher on Windows matches case-insensitively.
+    private static final boolean IGNORE_CASE = File.separatorChar == '\\';
+
+    private final String prefix;
+    private final String suffix;
+    private final boolean wildcard;
+    private final PathMatcher fallback;
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Matches directories on walking against a glob pattern split into its path elements ("segments").
+ *
+ * <p>It tells whether a file under a directory can still match the whole pattern so that the walker can skip the
+ * subtree as early as possible. For example, {@code /data/2026-10-??/part-*.gz} never descends into
+ * {@code /data/2025-01-01}.
+ *
+ * <p>The state is a set of indexes of segments which are expected next. The state is advanced by one path element
+ * on each directory level, then it is kept per directory while walking.
+ *
+ * <p>If the pattern consists only of whole path elements and {@code "**"}, the state also decides whether a file
+ * matches by its name, without the regular {@link PathMatcher} with the whole pattern. Otherwise, the regular
+ * {@link PathMatcher} decides it after a cheap check of the literal suffix of the pattern.
+ */
+final class GlobSegmentMatcher {
+    private GlobSegmentMatcher(final List<Segment> segments, final boolean prunable, final String fileNameSuffix) {
+        this.segments = segments;
+        this.prunable = prunable;
+        this.exact = prunable && segments.stream().noneMatch(segment -> segment.kind == SegmentKind.ANY_DEPTH);
+        this.fileNameSuffix = fileNameSuffix;
+    }
+
+    /**
+     * Compiles a glob pattern in a {@link Path} into segments.
+     *
+     * <p>The pattern is not pruned at all if a brace or a bracket expression contains a separator because such a
+     * pattern cannot be split into path elements safely.
+     */
+    static GlobSegmentMatcher compile(final Path pattern) {
+        final String patternString = pattern.toString();
+        // The literal tail of the pattern after the last meta character and the last separator ends any matching file name.
+        String fileNameSuffix = patternString.substring(GlobNameMatcher.lastIndexOfMeta(patternString) + 1);
+        fileNameSuffix = fileNameSuffix.substring(Math.max(fileNameSuffix.lastIndexOf(SEPARATOR), fileNameSuffix.lastIndexOf('/')) + 1);
+
+        final ArrayList<Segment> segments = new ArrayList<>();
+        if (containsSeparatorInGroup(patternString)) {
+            return new GlobSegmentMatcher(segments, false, fileNameSuffix);
+        }
+        for (final Path name : pattern) {
+            final String nameString = name.toString();
+            if (nameString.isEmpty()) {
+                continue;
+            }
+            segments.add(new Segment(nameString));
+        }
+        return new GlobSegmentMatcher(segments, true, fileNameSuffix);
+    }
+
+    /**
+     * Returns the initial state before consuming any path element.
+     */
+    BitSet initialState() {
+        final BitSet state = new BitSet(this.segments.size() + 1);
+        state.set(0);
+        return state;
+    }
+
+    /**
+     * Returns the state after consuming all path elements of {@code dir}.
+     */
+    BitSet stateOf(final Path dir) {
+        BitSet state = this.initialState();
+        if (dir.toString().isEmpty()) {
+            return state;
+        }
+        for (final Path name : dir) {
+            state = this.advance(state, name);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the state after consuming a path element {@code name}.
+     */
+    BitSet advance(final BitSet state, final Path name) {
+        return this.advance(state, name.toString());
+    }
+
+    private BitSet advance(final BitSet state, final String name) {
+        if (!this.prunable) {
+            return state;
+        }
+        final BitSet next = new BitSet(this.segments.size() + 1);
+        for (int i = state.nextSetBit(0); i >= 0 && i < this.segments.size(); i = state.nextSetBit(i + 1)) {
+            final Segment segment = this.segments.get(i);
+            switch (segment.kind) {
+                case ANY_DEPTH:
+                    // It may span any number of path elements. Nothing under it is pruned.
+                    next.set(i);
+                    break;
+                case RECURSIVE:
+                    // "**" as a whole path element matches one or more path elements.
+                    next.set(i);
+                    next.set(i + 1);
+                    break;
+                default:
+                    if (segment.matcher.matches(name)) {
+                        next.set(i + 1);
+                    }
+                    break;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns {@code true} if {@link #matchesFile} decides whether a file matches the whole pattern.
+     */
+    boolean isExact() {
+        return this.exact;
+    }
+
+    /**
+     * Returns {@code true} if a file named {@code fileName} in the directory in {@code dirState} matches the pattern.
+     *
+     * <p>It is available only if {@link #isExact()} is {@code true}.
+     */
+    boolean matchesFile(final BitSet dirState, final String fileName) {
+        if (!this.exact) {
+            throw new IllegalStateException("The pattern cannot be matched only by segments.");
+        }
+        return this.advance(dirState, fileName).get(this.segments.size());
+    }
+
+    /**
+     * Returns {@code false} if a file named {@code fileName} never matches the pattern. It is a cheap check before
+     * matching with the regular {@link PathMatcher}.
+     */
+    boolean mayMatchFileName(final String fileName) {
+        final int suffixLength = this.fileNameSuffix.length();
+        return fileName.regionMatches(IGNORE_CASE, fileName.length() - suffixLength, this.fileNameSuffix, 0, suffixLength);
+    }
+
+    /**
+     * Returns {@code true} if a file under the directory in {@code state} can still match the pattern.
+     */
+    boolean canMatchBelow(final BitSet state) {
+        if (!this.prunable) {
+            return true;
+        }
+        final int firstState = state.nextSetBit(0);
+        return firstState >= 0 && firstState < this.segments.size();
+    }
+
+    /**
+     * Returns the maximum depth to walk from a directory with {@code startNameCount} path elements.
+     *
+     * <p>It is {@link Integer#MAX_VALUE} if the pattern contains {@code "**"}, which can span any number of levels.
+     */
+    int maxDepthFrom(final int startNameCount) {
+        if (!this.prunable) {
+            return Integer.MAX_VALUE;
+        }
+        for (final Segment segment : this.segments) {
+            if (segment.kind != SegmentKind.SINGLE) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return Math.max(this.segments.size() - startNameCount, 1);
+    }
+
+    private static boolean containsSeparatorInGroup(final String pattern) {
+        int braceDepth = 0;
+        boolean inBracket = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\\' && SEPARATOR != '\\') {
+                i++;  // Skip an escaped character.
+                continue;
+            }
+            if (inBracket) {
+                if (c == ']') {
+                    inBracket = false;
+                } else if (c == SEPARATOR || c == '/') {
+                    return true;
+                }
+            } else if (c == '[') {
+                inBracket = true;
+            } else if (c == '{') {
+                braceDepth++;
+            } else if (c == '}') {
+                braceDepth = Math.max(braceDepth - 1, 0);
+            } else if (braceDepth > 0 && (c == SEPARATOR || c == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum SegmentKind {
+        SINGLE,
+        RECURSIVE,
+        ANY_DEPTH,
+        ;
+    }
+
+    private static final class Segment {
+        Segment(final String glob) {
+            if (glob.equals("**")) {
+                this.kind = SegmentKind.RECURSIVE;
+                this.matcher = null;
+            } else if (glob.contains("**")) {
+                this.kind = SegmentKind.ANY_DEPTH;
+                this.matcher = null;
+            } else {
+                this.kind = SegmentKind.SINGLE;
+                this.matcher = GlobNameMatcher.compile(glob);
+            }
+        }
+
+        final SegmentKind kind;
+        final GlobNameMatcher matcher;
+    }
+
+    private static final char SEPARATOR = FileSystems.getDefault().getSeparator().charAt(0);
+
+    // PathMatcher on Windows matches case-insensitively.
+    private static final boolean IGNORE_CASE = SEPARATOR == '\\';
+
+    private final List<Segment> segments;
+    private final boolean prunable;
+    private final boolean exact;
+    private final String fileNameSuffix;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors for blocking file I/O, such as reading attributes, prefetching files and reading ahead.
+ *
+ * <p>This is the implementation for Java 8 and later, with daemon platform threads. The JAR is multi-release, and
+ * the implementation in {@code src/main/java21} with virtual threads replaces it on Java 21 and later. CPU-bound work,
+ * such as decompression, does not run on these executors.
+ */
+final class IoThreads {
+    private IoThreads() {
+        // No instantiation.
+    }
+
+    /**
+     * Creates an executor which runs at most {@code threads} tasks at a time in threads named {@code name}.
+     */
+    static ExecutorService newExecutor(final String name, final int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static boolean isVirtual() {
+        return false;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads lines of a file which start in a byte range {@code [start, end)}.
+ *
+ * <p>A line starts at the beginning of the file, or just after {@code '\n'}. A line which starts in the range is read
+ * to its end even if it ends after {@code end}, and a line which starts before {@code start} is skipped. Then, all
+ * the lines of a file are read exactly once by readers of consecutive ranges.
+ *
+ * <p>In other words, it reads bytes from {@code alignToLineStart(start)} to {@code alignToLineStart(end)}.
+ */
+final class LineRangeInputStream extends InputStream {
+    private LineRangeInputStream(final FileChannel channel, final long position, final long end) {
+        this.channel = channel;
+        this.in = Channels.newInputStream(channel);
+        this.remaining = Math.max(end - position, 0);
+    }
+
+    static LineRangeInputStream open(final File file, final long start, final long end) throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            final long alignedStart = alignToLineStart(channel, start);
+            final long alignedEnd = alignToLineStart(channel, end);
+            channel.position(alignedStart);
+            return new LineRangeInputStream(channel, alignedStart, alignedEnd);
+        } catch (final IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the position of the first line which starts at {@code position} or later, or the end of the file.
+     */
+    static long alignToLineStart(final FileChannel channel, final long position) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+        // The line which contains |position - 1| starts before |position|, even if it ends just at |position - 1|.
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long scanning = position - 1;
+        while (true) {
+            buffer.clear();
+            final int read = channel.read(buffer, scanning);
+            if (read < 0) {
+                return Math.max(channel.size(), position);
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return scanning + i + 1;
+                }
+            }
+            scanning += read;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.remaining <= 0) {
+            return -1;
+        }
+        final int read = this.in.read();
+        if (read >= 0) {
+            this.remaining--;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (this.remaining <= 0) {
+            return -1;
+        }
+        final int read = this.in.read(b, off, (int) Math.min(len, this.remaining));
+        if (read > 0) {
+            this.remaining -= read;
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final InputStream in;
+
+    private long remaining;
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A file found on listing, with its attributes taken while walking the tree.
+ *
+ * <p>It can also be a byte range of a file split by {@link #split(long)}.
+ */
+final class ListedFile {
+    ListedFile(final String path, final long size) {
+        this(path, size, FileTime.fromMillis(0L));
+    }
+
+    ListedFile(final String path, final long size, final FileTime lastModifiedTime) {
+        this(path, size, lastModifiedTime, -1L, -1L);
+    }
+
+    private ListedFile(final String path, final long size, final FileTime lastModifiedTime, final long rangeStart, final long rangeEnd) {
+        this.path = path;
+        this.size = size;
+        this.lastModifiedTime = lastModifiedTime;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+    }
+
+    static ListedFile of(final Path path, final BasicFileAttributes attrs) {
+        return new ListedFile(path.toString(), attrs.size(), attrs.lastModifiedTime());
+    }
+
+    /**
+     * Splits the file into byte ranges of {@code splitSize} bytes. The last range may be smaller.
+     */
+    List<ListedFile> split(final long splitSize) {
+        if (this.size <= splitSize) {
+            return Collections.singletonList(this);
+        }
+        final ArrayList<ListedFile> ranges = new ArrayList<>();
+        for (long start = 0; start < this.size; start += splitSize) {
+            final long end = Math.min(start + splitSize, this.size);
+            ranges.add(new ListedFile(this.path, end - start, this.lastModifiedTime, start, end));
+        }
+        return ranges;
+    }
+
+    String getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns the size of the file, or the size of the range if it is a range.
+     */
+    long getSize() {
+        return this.size;
+    }
+
+    FileTime getLastModifiedTime() {
+        return this.lastModifiedTime;
+    }
+
+    boolean isRange() {
+        return this.rangeStart >= 0;
+    }
+
+    long getRangeStart() {
+        return this.rangeStart;
+    }
+
+    long getRangeEnd() {
+        return this.rangeEnd;
+    }
+
+    @Override
+    public String toString() {
+        if (this.isRange()) {
+            return this.path + "[" + this.rangeStart + "-" + this.rangeEnd + "]";
+        }
+        return this.path;
+    }
+
+    private final String path;
+    private final long size;
+    private final FileTime lastModifiedTime;
+    private final long rangeStart;
+    private final long rangeEnd;
+}
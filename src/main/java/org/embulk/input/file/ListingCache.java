@@ -0,0 +1,302 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches entries of directories on disk between runs, keyed by the modification time of each directory.
+ *
+ * <p>A directory's modification time changes when an entry is created, removed, or renamed in the directory. Entries
+ * of a directory whose modification time is unchanged since the last run are reused without reading the directory.
+ * The kinds of the entries (a file, a directory, ...) are reused as well so that files do not have to be stat'ed just
+ * to be skipped. Other attributes of files, such as sizes, are always read from the file system when needed.
+ *
+ * <p>A symbolic link is cached as a symbolic link even when links are followed, and its target is always stat'ed again.
+ * Re-pointing a link does not change the modification time of its directory.
+ *
+ * <p>A directory modified too close to the time when it was listed is not reused because its modification time may
+ * not have changed visibly on a file system with coarse timestamps.
+ */
+final class ListingCache {
+    private ListingCache(final Path cachePath, final boolean followLinks, final Map<String, DirectoryEntries> loaded) {
+        this.cachePath = cachePath;
+        this.followLinks = followLinks;
+        this.loaded = loaded;
+        this.listedAt = System.currentTimeMillis();
+        this.recorded = new ConcurrentHashMap<>();
+    }
+
+    enum Kind {
+        @JsonProperty("f")
+        FILE,
+        @JsonProperty("d")
+        DIRECTORY,
+        @JsonProperty("l")
+        SYMBOLIC_LINK,
+        @JsonProperty("o")
+        OTHER,
+        ;
+
+        static Kind of(final BasicFileAttributes attrs) {
+            if (attrs.isDirectory()) {
+                return DIRECTORY;
+            } else if (attrs.isSymbolicLink()) {
+                return SYMBOLIC_LINK;
+            } else if (attrs.isRegularFile()) {
+                return FILE;
+            }
+            return OTHER;
+        }
+    }
+
+    /**
+     * Loads the cache from {@code cachePath}. It starts with an empty cache if the file does not exist or is broken.
+     */
+    static ListingCache load(final Path cachePath, final boolean followLinks) {
+        if (!Files.exists(cachePath)) {
+            logger.info("Listing cache '{}' does not exist yet. Listing all directories.", cachePath);
+            return new ListingCache(cachePath, followLinks, Collections.emptyMap());
+        }
+        final Manifest manifest;
+        try {
+            manifest = MAPPER.readValue(cachePath.toFile(), Manifest.class);
+        } catch (final IOException ex) {
+            logger.warn("Failed to read listing cache '{}'. Listing all directories.", cachePath, ex);
+            return new ListingCache(cachePath, followLinks, Collections.emptyMap());
+        }
+        if (manifest.version != VERSION || manifest.followSymlinks != followLinks || manifest.directories == null) {
+            logger.info("Listing cache '{}' was created with different settings. Listing all directories.", cachePath);
+            return new ListingCache(cachePath, followLinks, Collections.emptyMap());
+        }
+        logger.info("Loaded listing cache '{}' with {} directories.", cachePath, manifest.directories.size());
+        return new ListingCache(cachePath, followLinks, manifest.directories);
+    }
+
+    /**
+     * Returns cached entries of {@code dir} if {@code dir} has not been modified since it was cached, or {@code null}.
+     */
+    Map<String, Kind> get(final Path dir, final BasicFileAttributes attrs) {
+        final String key = dir.toString();
+        final DirectoryEntries cached = this.loaded.get(key);
+        if (cached == null || cached.entries == null) {
+            return null;
+        }
+        final long modifiedTime = attrs.lastModifiedTime().toMillis();
+        if (cached.modifiedTime != modifiedTime || modifiedTime + TIMESTAMP_MARGIN_MILLIS > cached.listedAt) {
+            return null;
+        }
+        this.recorded.put(key, cached);
+        return cached.entries;
+    }
+
+    /**
+     * Records entries of {@code dir} read from the file system in this run.
+     */
+    void put(final Path dir, final BasicFileAttributes attrs, final Map<String, Kind> entries) {
+        final DirectoryEntries directoryEntries = new DirectoryEntries();
+        directoryEntries.modifiedTime = attrs.lastModifiedTime().toMillis();
+        directoryEntries.listedAt = this.listedAt;
+        directoryEntries.entries = new HashMap<>(entries);
+        this.recorded.put(dir.toString(), directoryEntries);
+    }
+
+    /**
+     * Saves directories visited in this run. Directories unvisited in this run are dropped from the cache.
+     */
+    void save() {
+        final Manifest manifest = new Manifest();
+        manifest.version = VERSION;
+        manifest.followSymlinks = this.followLinks;
+        manifest.directories = this.recorded;
+        try {
+            final Path parent = this.cachePath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path temporary = Files.createTempFile(parent, this.cachePath.getFileName().toString(), ".tmp");
+            try {
+                MAPPER.writeValue(temporary.toFile(), manifest);
+                Files.move(temporary, this.cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Failed to write listing cache '%s'", this.cachePath), ex);
+        }
+        logger.info("Saved listing cache '{}' with {} directories.", this.cachePath, this.recorded.size());
+    }
+
+    /**
+     * Returns the kind of {@code entry} to cache, whose attributes read in this run are {@code attrs}.
+     */
+    Kind kindToCache(final Path entry, final BasicFileAttributes attrs) {
+        // Followed attributes are of the target of a link.
+        if (this.followLinks && !attrs.isSymbolicLink() && Files.isSymbolicLink(entry)) {
+            return Kind.SYMBOLIC_LINK;
+        }
+        return Kind.of(attrs);
+    }
+
+    /**
+     * Returns whether an entry of the cached {@code kind} can be visited without reading its attributes first.
+     */
+    boolean isKindReusable(final Kind kind) {
+        return kind != Kind.DIRECTORY && !(this.followLinks && kind == Kind.SYMBOLIC_LINK);
+    }
+
+    /**
+     * Returns attributes of a file whose kind is known in the cache. Other attributes are read lazily.
+     *
+     * <p>Reading the attributes is counted in {@code stats} unless it is {@code null}.
+     */
+    BasicFileAttributes lazyAttributes(final Path file, final Kind kind, final ListingStats stats) {
+        return new LazyFileAttributes(file, kind, this.followLinks, stats);
+    }
+
+    private static final class LazyFileAttributes implements BasicFileAttributes {
+        LazyFileAttributes(final Path file, final Kind kind, final boolean followLinks, final ListingStats stats) {
+            this.file = file;
+            this.kind = kind;
+            this.followLinks = followLinks;
+            this.stats = stats;
+        }
+
+        @Override
+        public FileTime lastModifiedTime() {
+            return this.load().lastModifiedTime();
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            return this.load().lastAccessTime();
+        }
+
+        @Override
+        public FileTime creationTime() {
+            return this.load().creationTime();
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return this.kind == Kind.FILE;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return this.kind == Kind.DIRECTORY;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return this.kind == Kind.SYMBOLIC_LINK;
+        }
+
+        @Override
+        public boolean isOther() {
+            return this.kind == Kind.OTHER;
+        }
+
+        @Override
+        public long size() {
+            return this.load().size();
+        }
+
+        @Override
+        public Object fileKey() {
+            return this.load().fileKey();
+        }
+
+        private BasicFileAttributes load() {
+            if (this.loaded == null) {
+                if (this.stats != null) {
+                    this.stats.countStat();
+                }
+                try {
+                    if (this.followLinks) {
+                        this.loaded = Files.readAttributes(this.file, BasicFileAttributes.class);
+                    } else {
+                        this.loaded = Files.readAttributes(this.file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    }
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            return this.loaded;
+        }
+
+        private final Path file;
+        private final Kind kind;
+        private final boolean followLinks;
+        private final ListingStats stats;
+
+        private BasicFileAttributes loaded;
+    }
+
+    static final class Manifest {
+        @JsonProperty("version")
+        int version;
+
+        @JsonProperty("follow_symlinks")
+        boolean followSymlinks;
+
+        @JsonProperty("directories")
+        Map<String, DirectoryEntries> directories;
+    }
+
+    static final class DirectoryEntries {
+        @JsonProperty("mtime")
+        long modifiedTime;
+
+        @JsonProperty("listed_at")
+        long listedAt;
+
+        @JsonProperty("entries")
+        Map<String, Kind> entries;
+    }
+
+    // 2: Symbolic links followed are cached as symbolic links.
+    private static final int VERSION = 2;
+
+    // Modification times are as coarse as 2 seconds on some file systems.
+    private static final long TIMESTAMP_MARGIN_MILLIS = 2000L;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingCache.class);
+
+    private final Path cachePath;
+    private final boolean followLinks;
+    private final Map<String, DirectoryEntries> loaded;
+    private final long listedAt;
+    private final ConcurrentHashMap<String, DirectoryEntries> recorded;
+}
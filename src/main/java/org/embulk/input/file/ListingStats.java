@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts what listing files has done, to tell a slow listing apart from a slow read.
+ *
+ * <p>It is updated from multiple threads when directories are walked in parallel.
+ */
+final class ListingStats {
+    ListingStats() {
+        this.directoriesVisited = new AtomicLong();
+        this.directoriesPruned = new AtomicLong();
+        this.entriesStated = new AtomicLong();
+        this.filesMatched = 0L;
+        this.listingNanos = 0L;
+    }
+
+    /**
+     * Wraps {@code visitor} to count directories visited and pruned.
+     *
+     * <p>If {@code countsStats} is {@code true}, every entry visited is counted as stat'ed as {@code Files#walkFileTree}
+     * reads attributes of every entry. Otherwise, the walker is expected to count them by {@link #countStat()}.
+     */
+    FileVisitor<Path> count(final FileVisitor<Path> visitor, final boolean countsStats) {
+        return new FileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                if (countsStats) {
+                    countStat();
+                }
+                final FileVisitResult result = visitor.preVisitDirectory(dir, attrs);
+                if (result == FileVisitResult.SKIP_SUBTREE) {
+                    directoriesPruned.incrementAndGet();
+                } else {
+                    directoriesVisited.incrementAndGet();
+                }
+                return result;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                if (countsStats) {
+                    countStat();
+                }
+                return visitor.visitFile(file, attrs);
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException ex) throws IOException {
+                if (countsStats) {
+                    countStat();
+                }
+                return visitor.visitFileFailed(file, ex);
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException ex) throws IOException {
+                return visitor.postVisitDirectory(dir, ex);
+            }
+        };
+    }
+
+    void countStat() {
+        this.entriesStated.incrementAndGet();
+    }
+
+    void finish(final long filesMatched, final long listingNanos) {
+        this.filesMatched = filesMatched;
+        this.listingNanos = listingNanos;
+    }
+
+    long getDirectoriesVisited() {
+        return this.directoriesVisited.get();
+    }
+
+    long getDirectoriesPruned() {
+        return this.directoriesPruned.get();
+    }
+
+    long getEntriesStated() {
+        return this.entriesStated.get();
+    }
+
+    long getFilesMatched() {
+        return this.filesMatched;
+    }
+
+    long getListingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.listingNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d files matched in %d ms: %d directories visited, %d directories pruned, %d entries stat'ed",
+                             this.getFilesMatched(),
+                             this.getListingMillis(),
+                             this.getDirectoriesVisited(),
+                             this.getDirectoriesPruned(),
+                             this.getEntriesStated());
+    }
+
+    private final AtomicLong directoriesVisited;
+    private final AtomicLong directoriesPruned;
+    private final AtomicLong entriesStated;
+
+    private volatile long filesMatched;
+    private volatile long listingNanos;
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.embulk.config.TaskSource;
+
+/**
+ * Caches tasks mapped from {@link TaskSource}s by their transaction IDs, shared by tasks running in threads.
+ *
+ * <p>Executors pass a new {@link TaskSource} instance to {@code open} of each task, deserialized from the same task
+ * source of a transaction. The transaction ID in the task source is read by its key, which is much cheaper than mapping
+ * the whole task source, so that the task source is mapped about once per transaction instead of once per task.
+ *
+ * <p>Tasks are mapped without a lock. Tasks opened concurrently before the first one is cached may map the same task
+ * source, and the first cached one is shared.
+ */
+final class MappedTaskCache<T> {
+    MappedTaskCache(final Function<TaskSource, T> mapper, final String transactionIdKey) {
+        this.mapper = mapper;
+        this.transactionIdKey = transactionIdKey;
+        this.tasks = new ConcurrentHashMap<>();
+    }
+
+    T get(final TaskSource taskSource) {
+        final String transactionId = taskSource.get(String.class, this.transactionIdKey, null);
+        if (transactionId == null) {
+            return this.mapper.apply(taskSource);
+        }
+        final T cached = this.tasks.get(transactionId);
+        if (cached != null) {
+            return cached;
+        }
+        final T task = this.mapper.apply(taskSource);
+        if (this.tasks.size() >= MAX_TRANSACTIONS) {
+            // Not to keep tasks of transactions which are not removed in this JVM, such as on remote executors.
+            this.tasks.clear();
+        }
+        final T raced = this.tasks.putIfAbsent(transactionId, task);
+        return (raced != null) ? raced : task;
+    }
+
+    /**
+     * Releases the cached task of the transaction not to keep it after the transaction, whether it succeeds or not.
+     */
+    void remove(final String transactionId) {
+        this.tasks.remove(transactionId);
+    }
+
+    private static final int MAX_TRANSACTIONS = 4;
+
+    private final Function<TaskSource, T> mapper;
+    private final String transactionIdKey;
+    private final ConcurrentHashMap<String, T> tasks;
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.embulk.config.ConfigException;
+
+/**
+ * A high-water mark of modification times of files loaded so far, for {@code incremental_mode: mtime}.
+ *
+ * <p>A file is new if it is modified after {@code time}. Files modified exactly at {@code time} are new unless their
+ * paths are in {@code paths}, the boundary set of files already loaded at {@code time}. The boundary set is needed
+ * because another file can be modified at the same time, in the granularity of the file system, after listing.
+ */
+final class ModifiedTimeWatermark {
+    private ModifiedTimeWatermark(final Instant time, final Set<String> paths) {
+        this.time = time;
+        this.paths = paths;
+    }
+
+    static ModifiedTimeWatermark of(final Optional<String> time, final List<String> paths) {
+        if (!time.isPresent()) {
+            return new ModifiedTimeWatermark(null, Collections.emptySet());
+        }
+        final Instant parsed;
+        try {
+            parsed = OffsetDateTime.parse(time.get()).toInstant();
+        } catch (final DateTimeParseException ex) {
+            throw new ConfigException(
+                    "\"last_modified_time\" must be an ISO-8601 date-time with an offset, such as \"2026-01-31T12:00:00Z\": " + time.get(), ex);
+        }
+        return new ModifiedTimeWatermark(parsed, new HashSet<>(paths));
+    }
+
+    boolean accepts(final Path path, final FileTime modifiedTime) {
+        if (this.time == null) {
+            return true;
+        }
+        final int compared = modifiedTime.toInstant().compareTo(this.time);
+        if (compared != 0) {
+            return compared > 0;
+        }
+        return this.paths.isEmpty() || !this.paths.contains(path.toString());
+    }
+
+    /**
+     * Returns the watermark advanced by {@code files}, which are loaded in addition to the files so far.
+     */
+    ModifiedTimeWatermark advance(final List<ListedFile> files) {
+        Instant nextTime = this.time;
+        for (final ListedFile file : files) {
+            final Instant modifiedTime = file.getLastModifiedTime().toInstant();
+            if (nextTime == null || modifiedTime.compareTo(nextTime) > 0) {
+                nextTime = modifiedTime;
+            }
+        }
+        if (nextTime == null) {
+            return this;
+        }
+        final HashSet<String> nextPaths = new HashSet<>();
+        if (nextTime.equals(this.time)) {
+            nextPaths.addAll(this.paths);
+        }
+        for (final ListedFile file : files) {
+            if (file.getLastModifiedTime().toInstant().equals(nextTime)) {
+                nextPaths.add(file.getPath());
+            }
+        }
+        return new ModifiedTimeWatermark(nextTime, nextPaths);
+    }
+
+    Optional<String> getTime() {
+        return Optional.ofNullable(this.time).map(Instant::toString);
+    }
+
+    /**
+     * Returns the boundary set in sorted order so that the next config is stable.
+     */
+    List<String> getPaths() {
+        final ArrayList<String> sorted = new ArrayList<>(this.paths);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private final Instant time;  // null if no file has been loaded.
+    private final Set<String> paths;
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walks a file tree like {@link Files#walkFileTree(Path, Set, int, FileVisitor)} with sibling directories in parallel.
+ *
+ * <p>It works with a work-stealing {@link ForkJoinPool}. Each directory is a task, and a large directory is split
+ * into chunks of its entries. {@code postVisitDirectory} is called after all the entries under the directory are
+ * visited, as {@code Files#walkFileTree} does.
+ *
+ * <p>The visitor is called from multiple threads concurrently, and entries are visited in no particular order. The
+ * visitor must be thread-safe, and it must return only {@link FileVisitResult#CONTINUE} or
+ * {@link FileVisitResult#SKIP_SUBTREE}.
+ *
+ * <p>If a {@link ListingCache} is given, entries of unmodified directories are taken from the cache instead of
+ * reading the directories. Then, {@code preVisitDirectory} is called without opening the directory, and files are
+ * visited with attributes which are read lazily.
+ *
+ * <p>If {@link ListingStats} is given, attributes actually read from the file system are counted in it.
+ */
+final class ParallelFileTreeWalker {
+    private ParallelFileTreeWalker(
+            final Set<FileVisitOption> options,
+            final int maxDepth,
+            final FileVisitor<? super Path> visitor,
+            final ListingCache cache,
+            final ListingStats stats) {
+        this.followLinks = options.contains(FileVisitOption.FOLLOW_LINKS);
+        this.linkOptions = this.followLinks ? new LinkOption[0] : new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+        this.maxDepth = maxDepth;
+        this.visitor = visitor;
+        this.cache = cache;
+        this.stats = stats;
+    }
+
+    static void walkFileTree(
+            final Path start,
+            final Set<FileVisitOption> options,
+            final int maxDepth,
+            final FileVisitor<? super Path> visitor,
+            final int parallelism) throws IOException {
+        walkFileTree(start, options, maxDepth, visitor, parallelism, null, null);
+    }
+
+    static void walkFileTree(
+            final Path start,
+            final Set<FileVisitOption> options,
+            final int maxDepth,
+            final FileVisitor<? super Path> visitor,
+            final int parallelism,
+            final ListingCache cache,
+            final ListingStats stats) throws IOException {
+        final ParallelFileTreeWalker walker = new ParallelFileTreeWalker(options, maxDepth, visitor, cache, stats);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(walker.new EntriesAction(null, Collections.singletonList(start), null, 0));
+        } catch (final RuntimeException ex) {
+            // An exception thrown in a worker thread can be wrapped by ForkJoinTask.
+            for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+            }
+            throw ex;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Visits entries in a directory, or the start path only when {@code directory} is {@code null}.
+     *
+     * <p>{@code cachedKinds} are kinds of the entries taken from {@link ListingCache}, or {@code null}.
+     */
+    private final class EntriesAction extends RecursiveAction {
+        EntriesAction(
+                final Ancestor directory,
+                final List<Path> entries,
+                final Map<String, ListingCache.Kind> cachedKinds,
+                final int depth) {
+            this.directory = directory;
+            this.entries = entries;
+            this.cachedKinds = cachedKinds;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.entries.size() > ENTRIES_PER_ACTION) {
+                final ArrayList<EntriesAction> chunks = new ArrayList<>();
+                for (int i = 0; i < this.entries.size(); i += ENTRIES_PER_ACTION) {
+                    chunks.add(new EntriesAction(
+                            this.directory,
+                            this.entries.subList(i, Math.min(i + ENTRIES_PER_ACTION, this.entries.size())),
+                            this.cachedKinds,
+                            this.depth));
+                }
+                invokeAll(chunks);
+                return;
+            }
+
+            final ArrayList<DirectoryAction> directories = new ArrayList<>();
+            for (final Path entry : this.entries) {
+                final DirectoryAction directoryAction = visitEntry(entry);
+                if (directoryAction != null) {
+                    directories.add(directoryAction);
+                }
+            }
+            invokeAll(directories);
+        }
+
+        private DirectoryAction visitEntry(final Path entry) {
+            try {
+                final ListingCache.Kind cachedKind =
+                        (this.cachedKinds == null) ? null : this.cachedKinds.get(entry.getFileName().toString());
+                final BasicFileAttributes attrs;
+                if (cachedKind != null && cache.isKindReusable(cachedKind)) {
+                    attrs = cache.lazyAttributes(entry, cachedKind, stats);
+                } else {
+                    try {
+                        attrs = readAttributes(entry);
+                    } catch (final IOException ex) {
+                        if (this.directory != null) {
+                            this.directory.recordFailure();
+                        }
+                        checkResult(visitor.visitFileFailed(entry, ex));
+                        return null;
+                    }
+                    if (this.directory != null && cache != null) {
+                        this.directory.record(entry, cache.kindToCache(entry, attrs));
+                    }
+                }
+
+                if (this.depth >= maxDepth || !attrs.isDirectory()) {
+                    checkResult(visitor.visitFile(entry, attrs));
+                    return null;
+                }
+
+                if (followLinks && Ancestor.wouldLoop(this.directory, entry, attrs.fileKey())) {
+                    checkResult(visitor.visitFileFailed(entry, new FileSystemLoopException(entry.toString())));
+                    return null;
+                }
+
+                final Map<String, ListingCache.Kind> cachedChildren = (cache == null) ? null : cache.get(entry, attrs);
+                if (cachedChildren != null) {
+                    if (visitor.preVisitDirectory(entry, attrs) != FileVisitResult.CONTINUE) {
+                        return null;
+                    }
+                    final ArrayList<Path> children = new ArrayList<>(cachedChildren.size());
+                    for (final String childName : cachedChildren.keySet()) {
+                        children.add(entry.resolve(childName));
+                    }
+                    return new DirectoryAction(
+                            new Ancestor(this.directory, entry, attrs, false), children, cachedChildren, this.depth + 1, null);
+                }
+
+                final ArrayList<Path> children = new ArrayList<>();
+                final DirectoryStream<Path> stream;
+                try {
+                    stream = Files.newDirectoryStream(entry);
+                } catch (final IOException ex) {
+                    checkResult(visitor.visitFileFailed(entry, ex));
+                    return null;
+                }
+                IOException iterationException = null;
+                try {
+                    if (visitor.preVisitDirectory(entry, attrs) != FileVisitResult.CONTINUE) {
+                        return null;
+                    }
+                    for (final Path child : stream) {
+                        children.add(child);
+                    }
+                } catch (final DirectoryIteratorException ex) {
+                    iterationException = ex.getCause();
+                } finally {
+                    stream.close();
+                }
+                return new DirectoryAction(
+                        new Ancestor(this.directory, entry, attrs, cache != null), children, null, this.depth + 1, iterationException);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private final Ancestor directory;
+        private final List<Path> entries;
+        private final Map<String, ListingCache.Kind> cachedKinds;
+        private final int depth;
+    }
+
+    /**
+     * Visits entries in a directory, and then calls {@code postVisitDirectory} for the directory.
+     */
+    private final class DirectoryAction extends RecursiveAction {
+        DirectoryAction(
+                final Ancestor directory,
+                final List<Path> children,
+                final Map<String, ListingCache.Kind> cachedKinds,
+                final int depth,
+                final IOException iterationException) {
+            this.directory = directory;
+            this.children = children;
+            this.cachedKinds = cachedKinds;
+            this.depth = depth;
+            this.iterationException = iterationException;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.iterationException == null) {
+                new EntriesAction(this.directory, this.children, this.cachedKinds, this.depth).invoke();
+                this.directory.saveRecorded(cache);
+            }
+            try {
+                checkResult(visitor.postVisitDirectory(this.directory.dir, this.iterationException));
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private final Ancestor directory;
+        private final List<Path> children;
+        private final Map<String, ListingCache.Kind> cachedKinds;
+        private final int depth;
+        private final IOException iterationException;
+    }
+
+    /**
+     * A directory on walking, linked to its parent to detect loops of symbolic links.
+     *
+     * <p>It also records kinds of its entries to be saved in {@link ListingCache} when the directory is actually read.
+     */
+    private static final class Ancestor {
+        Ancestor(final Ancestor parent, final Path dir, final BasicFileAttributes attrs, final boolean recording) {
+            this.parent = parent;
+            this.dir = dir;
+            this.attrs = attrs;
+            this.fileKey = attrs.fileKey();
+            this.recorded = recording ? new ConcurrentHashMap<>() : null;
+        }
+
+        static boolean wouldLoop(final Ancestor ancestors, final Path dir, final Object fileKey) {
+            for (Ancestor ancestor = ancestors; ancestor != null; ancestor = ancestor.parent) {
+                if (fileKey != null && ancestor.fileKey != null) {
+                    if (fileKey.equals(ancestor.fileKey)) {
+                        return true;
+                    }
+                } else {
+                    try {
+                        if (Files.isSameFile(dir, ancestor.dir)) {
+                            return true;
+                        }
+                    } catch (final IOException | SecurityException ex) {
+                        // Not considered as a loop, as Files#walkFileTree does.
+                    }
+                }
+            }
+            return false;
+        }
+
+        void record(final Path entry, final ListingCache.Kind kind) {
+            if (this.recorded != null) {
+                this.recorded.put(entry.getFileName().toString(), kind);
+            }
+        }
+
+        void recordFailure() {
+            this.failed = true;
+        }
+
+        void saveRecorded(final ListingCache cache) {
+            // A directory with an entry failed to read is not cached not to miss the entry in the next run.
+            if (this.recorded != null && !this.failed) {
+                cache.put(this.dir, this.attrs, this.recorded);
+            }
+        }
+
+        private final Ancestor parent;
+        private final Path dir;
+        private final BasicFileAttributes attrs;
+        private final Object fileKey;
+        private final ConcurrentHashMap<String, ListingCache.Kind> recorded;
+
+        private volatile boolean failed;
+    }
+
+    private BasicFileAttributes readAttributes(final Path entry) throws IOException {
+        if (this.stats != null) {
+            this.stats.countStat();
+        }
+        try {
+            return Files.readAttributes(entry, BasicFileAttributes.class, this.linkOptions);
+        } catch (final IOException ex) {
+            if (!this.followLinks) {
+                throw ex;
+            }
+            // A broken symbolic link is visited as a link, as Files#walkFileTree does.
+            return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    private static void checkResult(final FileVisitResult result) {
+        if (result != FileVisitResult.CONTINUE && result != FileVisitResult.SKIP_SUBTREE) {
+            throw new UnsupportedOperationException("FileVisitResult." + result + " is not supported on parallel walking.");
+        }
+    }
+
+    // Entries in a directory are split into chunks of this size so that a large directory is walked in parallel.
+    private static final int ENTRIES_PER_ACTION = 256;
+
+    private final boolean followLinks;
+    private final LinkOption[] linkOptions;
+    private final int maxDepth;
+    private final FileVisitor<? super Path> visitor;
+    private final ListingCache cache;
+    private final ListingStats stats;
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.embulk.config.TaskReport;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.TransactionalFileInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads ahead buffers of the current file in a background thread, as a sequential prefetch.
+ *
+ * <p>It keeps up to {@code buffersAhead} buffers polled from the underlying input so that the parser does not stall
+ * between reads from a slow device. The underlying input is always called from one thread at a time: {@code nextFile}
+ * in the caller thread, and {@code poll} in the background thread only until the file ends.
+ */
+final class ReadAheadFileInput implements TransactionalFileInput {
+    ReadAheadFileInput(final TransactionalFileInput delegate, final int buffersAhead) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(buffersAhead);
+        this.executor = IoThreads.newExecutor("embulk-input-file_glob-read-ahead", 1);
+        this.reading = null;
+        this.stopping = false;
+        this.waitedNanos = 0L;
+    }
+
+    @Override
+    public boolean nextFile() {
+        this.stopReading();
+        if (!this.delegate.nextFile()) {
+            return false;
+        }
+        this.stopping = false;
+        this.reading = this.executor.submit(this::readAhead);
+        return true;
+    }
+
+    @Override
+    public Buffer poll() {
+        if (this.reading == null) {
+            throw new IllegalStateException("nextFile() must be called before poll()");
+        }
+        final long startedAt = System.nanoTime();
+        final Chunk chunk;
+        try {
+            chunk = this.queue.take();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while reading ahead.", ex);
+        }
+        this.waitedNanos += System.nanoTime() - startedAt;
+        if (chunk.buffer == null) {
+            // Keep returning null at the end of the file, and keep throwing the error after it, because the background
+            // thread has already finished.
+            this.queue.offer(chunk);
+        }
+        if (chunk.error != null) {
+            throw chunk.error;
+        }
+        return chunk.buffer;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.stopReading();
+        } finally {
+            this.executor.shutdownNow();
+            this.delegate.close();
+            logger.debug("Waited {} ms in total for buffers read ahead.", TimeUnit.NANOSECONDS.toMillis(this.waitedNanos));
+        }
+    }
+
+    @Override
+    public void abort() {
+        this.delegate.abort();
+    }
+
+    @Override
+    public TaskReport commit() {
+        return this.delegate.commit();
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        return this.delegate.hintOfCurrentInputFileNameForLogging();
+    }
+
+    private void readAhead() {
+        try {
+            while (!this.stopping) {
+                final Buffer buffer = this.delegate.poll();
+                if (buffer == null) {
+                    this.queue.put(Chunk.END);
+                    return;
+                }
+                this.queue.put(new Chunk(buffer, null));
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (final RuntimeException ex) {
+            try {
+                this.queue.put(new Chunk(null, ex));
+            } catch (final InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stops reading ahead the current file, and releases buffers which have not been polled.
+     */
+    private void stopReading() {
+        if (this.reading == null) {
+            return;
+        }
+        this.stopping = true;
+        // Drain the queue so that the background thread blocked on a full queue can finish.
+        while (!this.reading.isDone()) {
+            this.releaseQueued();
+            try {
+                this.reading.get(10, TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException ex) {
+                // Retry after draining the queue again.
+            } catch (final ExecutionException ex) {
+                break;
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        this.releaseQueued();
+        this.reading = null;
+    }
+
+    private void releaseQueued() {
+        for (Chunk chunk = this.queue.poll(); chunk != null; chunk = this.queue.poll()) {
+            if (chunk.buffer != null) {
+                chunk.buffer.release();
+            }
+        }
+    }
+
+    private static final class Chunk {
+        Chunk(final Buffer buffer, final RuntimeException error) {
+            this.buffer = buffer;
+            this.error = error;
+        }
+
+        static final Chunk END = new Chunk(null, null);
+
+        final Buffer buffer;
+        final RuntimeException error;
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadAheadFileInput.class);
+
+    private final TransactionalFileInput delegate;
+    private final ArrayBlockingQueue<Chunk> queue;
+    private final ExecutorService executor;
+
+    private Future<?> reading;
+    private volatile boolean stopping;
+    private long waitedNanos;
+}
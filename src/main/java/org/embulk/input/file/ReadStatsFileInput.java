@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.embulk.config.TaskReport;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.TransactionalFileInput;
+
+/**
+ * Counts bytes and files read by a task, and the time spent in reading, into its task report.
+ *
+ * <p>Only the time spent in the underlying input is counted, not the time spent by the parser between polls.
+ */
+final class ReadStatsFileInput implements TransactionalFileInput {
+    ReadStatsFileInput(final TransactionalFileInput delegate) {
+        this.delegate = delegate;
+        this.filesRead = 0L;
+        this.bytesRead = 0L;
+        this.readNanos = 0L;
+    }
+
+    @Override
+    public boolean nextFile() {
+        final long startedAt = System.nanoTime();
+        try {
+            final boolean hasNext = this.delegate.nextFile();
+            if (hasNext) {
+                this.filesRead++;
+            }
+            return hasNext;
+        } finally {
+            this.readNanos += System.nanoTime() - startedAt;
+        }
+    }
+
+    @Override
+    public Buffer poll() {
+        final long startedAt = System.nanoTime();
+        try {
+            final Buffer buffer = this.delegate.poll();
+            if (buffer != null) {
+                this.bytesRead += buffer.limit();
+            }
+            return buffer;
+        } finally {
+            this.readNanos += System.nanoTime() - startedAt;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.delegate.close();
+    }
+
+    @Override
+    public void abort() {
+        this.delegate.abort();
+    }
+
+    @Override
+    public TaskReport commit() {
+        final TaskReport report = this.delegate.commit();
+        final long readMillis = TimeUnit.NANOSECONDS.toMillis(this.readNanos);
+        report.set(FILES_READ, this.filesRead);
+        report.set(BYTES_READ, this.bytesRead);
+        report.set(READ_MILLIS, readMillis);
+        report.set(BYTES_PER_SECOND, bytesPerSecond(this.bytesRead, this.readNanos));
+        return report;
+    }
+
+    @Override
+    public Optional<String> hintOfCurrentInputFileNameForLogging() {
+        return this.delegate.hintOfCurrentInputFileNameForLogging();
+    }
+
+    /**
+     * Summarizes task reports of all the tasks into a line to log.
+     */
+    static String summarize(final List<TaskReport> taskReports) {
+        long filesRead = 0L;
+        long bytesRead = 0L;
+        long readMillis = 0L;
+        for (final TaskReport report : taskReports) {
+            filesRead += report.get(Long.class, FILES_READ, 0L);
+            bytesRead += report.get(Long.class, BYTES_READ, 0L);
+            readMillis += report.get(Long.class, READ_MILLIS, 0L);
+        }
+        return String.format("%d files, %d bytes in %d tasks: %d ms spent in reading in total, %d bytes/s per task",
+                             filesRead,
+                             bytesRead,
+                             taskReports.size(),
+                             readMillis,
+                             bytesPerSecond(bytesRead, TimeUnit.MILLISECONDS.toNanos(readMillis)));
+    }
+
+    private static long bytesPerSecond(final long bytes, final long nanos) {
+        if (nanos <= 0) {
+            return 0L;
+        }
+        return (long) (bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+    }
+
+    static final String FILES_READ = "files_read";
+    static final String BYTES_READ = "bytes_read";
+    static final String READ_MILLIS = "read_millis";
+    static final String BYTES_PER_SECOND = "bytes_per_second";
+
+    private final TransactionalFileInput delegate;
+
+    // They are updated by one thread at a time, but the thread may be a read-ahead thread.
+    private volatile long filesRead;
+    private volatile long bytesRead;
+    private volatile long readNanos;
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Walks a file tree like {@link Files#walkFileTree(Path, Set, int, FileVisitor)}, but in lexicographic order of paths.
+ *
+ * <p>Entries in each directory are sorted by their names, with the name separator appended to names of directories.
+ * Then, the depth-first order of the walk is equal to the order of {@link String#compareTo} of the whole paths, such
+ * as {@code a.b} before {@code a/c} since {@code '.'} is less than {@code '/'}. Files are visited in sorted order
+ * without sorting all the paths at the end.
+ *
+ * <p>Attributes of all the entries in a directory are read before visiting them to sort them. Only one directory on
+ * each level of the tree is kept in memory at a time.
+ *
+ * <p>If {@code statThreads} is more than 1, attributes of entries in a large directory are read by the threads
+ * concurrently in batches. It keeps multiple metadata requests in flight to a device which serves them in parallel,
+ * such as NVMe SSDs and network file systems, while the walk itself stays sequential and sorted.
+ */
+final class SortedFileTreeWalker {
+    private SortedFileTreeWalker(
+            final Set<FileVisitOption> options,
+            final int maxDepth,
+            final FileVisitor<? super Path> visitor,
+            final ExecutorService statExecutor) {
+        this.followLinks = options.contains(FileVisitOption.FOLLOW_LINKS);
+        this.linkOptions = this.followLinks ? new LinkOption[0] : new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+        this.maxDepth = maxDepth;
+        this.visitor = visitor;
+        this.statExecutor = statExecutor;
+        this.ancestors = new ArrayDeque<>();
+    }
+
+    static void walkFileTree(
+            final Path start,
+            final Set<FileVisitOption> options,
+            final int maxDepth,
+            final FileVisitor<? super Path> visitor) throws IOException {
+        walkFileTree(start, options, maxDepth, visitor, 1);
+    }
+
+    static void walkFileTree(
+            final Path start,
+            final Set<FileVisitOption> options,
+            final int maxDepth,
+            final FileVisitor<? super Path> visitor,
+            final int statThreads) throws IOException {
+        final ExecutorService statExecutor;
+        if (statThreads > 1) {
+            statExecutor = IoThreads.newExecutor("embulk-input-file_glob-stat", statThreads);
+        } else {
+            statExecutor = null;
+        }
+        try {
+            final SortedFileTreeWalker walker = new SortedFileTreeWalker(options, maxDepth, visitor, statExecutor);
+            walker.visit(walker.readEntry(start), 0);
+        } finally {
+            if (statExecutor != null) {
+                statExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private FileVisitResult visit(final Entry entry, final int depth) throws IOException {
+        if (entry.exception != null) {
+            return this.visitor.visitFileFailed(entry.path, entry.exception);
+        }
+        if (depth >= this.maxDepth || !entry.attrs.isDirectory()) {
+            return this.visitor.visitFile(entry.path, entry.attrs);
+        }
+        if (this.followLinks && this.wouldLoop(entry)) {
+            return this.visitor.visitFileFailed(entry.path, new FileSystemLoopException(entry.path.toString()));
+        }
+
+        final ArrayList<Path> childPaths = new ArrayList<>();
+        final DirectoryStream<Path> stream;
+        try {
+            stream = Files.newDirectoryStream(entry.path);
+        } catch (final IOException ex) {
+            return this.visitor.visitFileFailed(entry.path, ex);
+        }
+        IOException iterationException = null;
+        try {
+            final FileVisitResult result = this.visitor.preVisitDirectory(entry.path, entry.attrs);
+            if (result != FileVisitResult.CONTINUE) {
+                return result;
+            }
+            for (final Path child : stream) {
+                childPaths.add(child);
+            }
+        } catch (final DirectoryIteratorException ex) {
+            iterationException = ex.getCause();
+        } finally {
+            stream.close();
+        }
+
+        if (iterationException == null) {
+            final List<Entry> children = this.readEntries(childPaths);
+            children.sort(Comparator.comparing(child -> child.sortKey));
+            this.ancestors.push(entry);
+            try {
+                for (final Entry child : children) {
+                    final FileVisitResult result = this.visit(child, depth + 1);
+                    if (result == FileVisitResult.TERMINATE) {
+                        return result;
+                    } else if (result == FileVisitResult.SKIP_SIBLINGS) {
+                        break;
+                    }
+                }
+            } finally {
+                this.ancestors.pop();
+            }
+        }
+        return this.visitor.postVisitDirectory(entry.path, iterationException);
+    }
+
+    private List<Entry> readEntries(final List<Path> paths) throws IOException {
+        final ArrayList<Entry> entries = new ArrayList<>(paths.size());
+        if (this.statExecutor == null || paths.size() <= STAT_BATCH_SIZE) {
+            for (final Path path : paths) {
+                entries.add(this.readEntry(path));
+            }
+            return entries;
+        }
+
+        final ArrayList<Future<List<Entry>>> batches = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i += STAT_BATCH_SIZE) {
+            final List<Path> batch = paths.subList(i, Math.min(i + STAT_BATCH_SIZE, paths.size()));
+            batches.add(this.statExecutor.submit(() -> {
+                final ArrayList<Entry> batchEntries = new ArrayList<>(batch.size());
+                for (final Path path : batch) {
+                    batchEntries.add(this.readEntry(path));
+                }
+                return batchEntries;
+            }));
+        }
+        try {
+            for (final Future<List<Entry>> batch : batches) {
+                entries.addAll(batch.get());
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading attributes.");
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IOException("Failed to read attributes.", ex.getCause());
+        } finally {
+            for (final Future<List<Entry>> batch : batches) {
+                batch.cancel(true);
+            }
+        }
+        return entries;
+    }
+
+    private Entry readEntry(final Path path) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class, this.linkOptions);
+        } catch (final IOException ex) {
+            if (!this.followLinks) {
+                return new Entry(path, null, ex);
+            }
+            // A broken symbolic link is visited as a link, as Files#walkFileTree does.
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (final IOException ex2) {
+                return new Entry(path, null, ex2);
+            }
+        }
+        return new Entry(path, attrs, null);
+    }
+
+    private boolean wouldLoop(final Entry entry) {
+        final Object fileKey = entry.attrs.fileKey();
+        for (final Entry ancestor : this.ancestors) {
+            final Object ancestorFileKey = ancestor.attrs.fileKey();
+            if (fileKey != null && ancestorFileKey != null) {
+                if (fileKey.equals(ancestorFileKey)) {
+                    return true;
+                }
+            } else {
+                try {
+                    if (Files.isSameFile(entry.path, ancestor.path)) {
+                        return true;
+                    }
+                } catch (final IOException | SecurityException ex) {
+                    // Not considered as a loop, as Files#walkFileTree does.
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry {
+        Entry(final Path path, final BasicFileAttributes attrs, final IOException exception) {
+            this.path = path;
+            this.attrs = attrs;
+            this.exception = exception;
+            final Path fileName = path.getFileName();
+            final String name = (fileName == null) ? path.toString() : fileName.toString();
+            this.sortKey = (attrs != null && attrs.isDirectory()) ? name + path.getFileSystem().getSeparator() : name;
+        }
+
+        final Path path;
+        final BasicFileAttributes attrs;  // null if failed to read.
+        final IOException exception;  // null if succeeded to read.
+        final String sortKey;
+    }
+
+    // Small enough to spread a directory of hundreds of entries over threads, and large enough to amortize a task.
+    private static final int STAT_BATCH_SIZE = 64;
+
+    private final boolean followLinks;
+    private final LinkOption[] linkOptions;
+    private final int maxDepth;
+    private final FileVisitor<? super Path> visitor;
+    private final ExecutorService statExecutor;  // null if attributes are read in the walking thread.
+    private final Deque<Entry> ancestors;
+}
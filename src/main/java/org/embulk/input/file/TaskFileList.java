@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Files of a task, encoded compactly into a string to be stored in the task source.
+ *
+ * <p>Each path is front-coded: only the length of the prefix shared with the previous path and the rest of the path
+ * are written. Paths listed from the same directories share long prefixes, so the list is small even before it is
+ * deflated. Each task has its own encoded string so that a task decodes only its own files.
+ *
+ * <p>Byte ranges of files are encoded as well only if any of the files is a range.
+ */
+final class TaskFileList {
+    private TaskFileList(final List<String> paths, final List<Long> rangeStarts, final List<Long> rangeEnds) {
+        this.paths = Collections.unmodifiableList(paths);
+        this.rangeStarts = (rangeStarts == null) ? null : Collections.unmodifiableList(rangeStarts);
+        this.rangeEnds = (rangeEnds == null) ? null : Collections.unmodifiableList(rangeEnds);
+    }
+
+    static String encode(final List<ListedFile> files) {
+        final boolean hasRange = files.stream().anyMatch(ListedFile::isRange);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeByte(VERSION);
+            writeVarLong(out, files.size());
+            out.writeBoolean(hasRange);
+            String previous = "";
+            for (final ListedFile file : files) {
+                final String path = file.getPath();
+                final int shared = sharedPrefixLength(previous, path);
+                final byte[] rest = path.substring(shared).getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, shared);
+                writeVarLong(out, rest.length);
+                out.write(rest);
+                if (hasRange) {
+                    // +1 so that -1 for a whole file is written as 0.
+                    writeVarLong(out, file.getRangeStart() + 1);
+                    writeVarLong(out, file.getRangeEnd() + 1);
+                }
+                previous = path;
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    static TaskFileList decode(final String encoded) {
+        final byte[] bytes = Base64.getDecoder().decode(encoded);
+        try (final DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            final int version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported version of an encoded file list: " + version);
+            }
+            final int size = (int) readVarLong(in);
+            final boolean hasRange = in.readBoolean();
+            final ArrayList<String> paths = new ArrayList<>(size);
+            final ArrayList<Long> rangeStarts = hasRange ? new ArrayList<>(size) : null;
+            final ArrayList<Long> rangeEnds = hasRange ? new ArrayList<>(size) : null;
+            String previous = "";
+            for (int i = 0; i < size; i++) {
+                final int shared = (int) readVarLong(in);
+                final byte[] rest = new byte[(int) readVarLong(in)];
+                in.readFully(rest);
+                final String path = previous.substring(0, shared) + new String(rest, StandardCharsets.UTF_8);
+                paths.add(path);
+                if (hasRange) {
+                    rangeStarts.add(readVarLong(in) - 1);
+                    rangeEnds.add(readVarLong(in) - 1);
+                }
+                previous = path;
+            }
+            return new TaskFileList(paths, rangeStarts, rangeEnds);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    List<String> getPaths() {
+        return this.paths;
+    }
+
+    /**
+     * Returns start offsets of byte ranges, -1 for whole files, or {@code null} if no file is a range.
+     */
+    List<Long> getRangeStarts() {
+        return this.rangeStarts;
+    }
+
+    /**
+     * Returns end offsets of byte ranges, -1 for whole files, or {@code null} if no file is a range.
+     */
+    List<Long> getRangeEnds() {
+        return this.rangeEnds;
+    }
+
+    private static int sharedPrefixLength(final String previous, final String path) {
+        final int max = Math.min(previous.length(), path.length());
+        int shared = 0;
+        while (shared < max && previous.charAt(shared) == path.charAt(shared)) {
+            shared++;
+        }
+        // Not to split a surrogate pair, which could not be encoded in UTF-8 by itself.
+        if (shared > 0 && Character.isHighSurrogate(path.charAt(shared - 1))) {
+            shared--;
+        }
+        return shared;
+    }
+
+    private static void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.writeByte((int) remaining);
+    }
+
+    private static long readVarLong(final DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer in an encoded file list.");
+    }
+
+    private static final int VERSION = 1;
+
+    private final List<String> paths;
+    private final List<Long> rangeStarts;
+    private final List<Long> rangeEnds;
+}
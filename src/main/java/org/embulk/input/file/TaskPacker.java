@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Groups listed files into tasks.
+ *
+ * <p>Files are reordered so that files in the same task are contiguous. Then, the files of task {@code i} are from
+ * {@code offsets[i]} (inclusive) to {@code offsets[i + 1]} (exclusive).
+ */
+final class TaskPacker {
+    private TaskPacker(final List<ListedFile> packed, final List<Integer> offsets) {
+        this.packed = Collections.unmodifiableList(packed);
+        this.offsets = Collections.unmodifiableList(offsets);
+    }
+
+    /**
+     * Assigns one file to one task, which is the default.
+     */
+    static TaskPacker onePerTask(final List<ListedFile> listedFiles) {
+        final ArrayList<Integer> offsets = new ArrayList<>(listedFiles.size() + 1);
+        for (int i = 0; i <= listedFiles.size(); i++) {
+            offsets.add(i);
+        }
+        return new TaskPacker(listedFiles, offsets);
+    }
+
+    /**
+     * Packs files into {@code taskCount} tasks balanced by their total sizes.
+     *
+     * <p>It assigns the largest file first to the task with the least total size (LPT). Files in a task are kept in
+     * the listing order.
+     */
+    static TaskPacker byTaskCount(final List<ListedFile> listedFiles, final int taskCount) {
+        final int bins = Math.min(taskCount, listedFiles.size());
+        if (bins == 0) {
+            return onePerTask(listedFiles);
+        }
+
+        final ArrayList<Integer> indexesBySize = new ArrayList<>(listedFiles.size());
+        for (int i = 0; i < listedFiles.size(); i++) {
+            indexesBySize.add(i);
+        }
+        indexesBySize.sort(Comparator.comparingLong((Integer i) -> listedFiles.get(i).getSize()).reversed());
+
+        final PriorityQueue<Bin> leastLoaded = new PriorityQueue<>(bins);
+        final ArrayList<Bin> allBins = new ArrayList<>(bins);
+        for (int i = 0; i < bins; i++) {
+            final Bin bin = new Bin(i);
+            allBins.add(bin);
+            leastLoaded.add(bin);
+        }
+        for (final int index : indexesBySize) {
+            final Bin bin = leastLoaded.poll();
+            bin.add(index, listedFiles.get(index).getSize());
+            leastLoaded.add(bin);
+        }
+
+        final ArrayList<ListedFile> files = new ArrayList<>(listedFiles.size());
+        final ArrayList<Integer> offsets = new ArrayList<>(bins + 1);
+        for (final Bin bin : allBins) {
+            Collections.sort(bin.indexes);
+            offsets.add(files.size());
+            for (final int index : bin.indexes) {
+                files.add(listedFiles.get(index));
+            }
+        }
+        offsets.add(files.size());
+        return new TaskPacker(files, offsets);
+    }
+
+    /**
+     * Packs consecutive files into tasks by their total sizes.
+     *
+     * <p>A task is closed when its total size reaches {@code minTaskSize}, or when the next file would make it larger
+     * than {@code maxTaskSize}. A file larger than {@code maxTaskSize} is still in its own task.
+     */
+    static TaskPacker bySize(final List<ListedFile> listedFiles, final long minTaskSize, final long maxTaskSize) {
+        final ArrayList<ListedFile> files = new ArrayList<>(listedFiles.size());
+        final ArrayList<Integer> offsets = new ArrayList<>();
+        long currentSize = 0;
+        for (final ListedFile listedFile : listedFiles) {
+            final boolean isFull = currentSize >= minTaskSize
+                    || (currentSize > 0 && currentSize + listedFile.getSize() > maxTaskSize);
+            if (offsets.isEmpty() || isFull) {
+                offsets.add(files.size());
+                currentSize = 0;
+            }
+            files.add(listedFile);
+            currentSize += listedFile.getSize();
+        }
+        offsets.add(files.size());
+        return new TaskPacker(files, offsets);
+    }
+
+    /**
+     * Returns the same tasks ordered by their total sizes, the largest first.
+     *
+     * <p>Executors take tasks in the order of task indexes. Issuing the largest task first (LPT) keeps it from starting
+     * last and running alone after the other tasks end. Tasks of the same size, and files in each task, keep their
+     * order.
+     */
+    TaskPacker largestFirst() {
+        final ArrayList<Integer> taskIndexes = new ArrayList<>(this.getTaskCount());
+        final long[] taskSizes = new long[this.getTaskCount()];
+        for (int i = 0; i < this.getTaskCount(); i++) {
+            taskIndexes.add(i);
+            for (final ListedFile file : this.getTaskFiles(i)) {
+                taskSizes[i] += file.getSize();
+            }
+        }
+        taskIndexes.sort(Comparator.comparingLong((Integer i) -> taskSizes[i]).reversed());
+
+        final ArrayList<ListedFile> files = new ArrayList<>(this.packed.size());
+        final ArrayList<Integer> offsets = new ArrayList<>(this.offsets.size());
+        for (final int taskIndex : taskIndexes) {
+            offsets.add(files.size());
+            files.addAll(this.getTaskFiles(taskIndex));
+        }
+        offsets.add(files.size());
+        return new TaskPacker(files, offsets);
+    }
+
+    List<ListedFile> getTaskFiles(final int taskIndex) {
+        return this.packed.subList(this.offsets.get(taskIndex), this.offsets.get(taskIndex + 1));
+    }
+
+    int getTaskCount() {
+        return this.offsets.size() - 1;
+    }
+
+    private static final class Bin implements Comparable<Bin> {
+        Bin(final int order) {
+            this.order = order;
+            this.indexes = new ArrayList<>();
+        }
+
+        void add(final int index, final long size) {
+            this.indexes.add(index);
+            this.totalSize += size;
+        }
+
+        @Override
+        public int compareTo(final Bin other) {
+            final int bySize = Long.compare(this.totalSize, other.totalSize);
+            return (bySize != 0) ? bySize : Integer.compare(this.order, other.order);
+        }
+
+        private final int order;
+        private final ArrayList<Integer> indexes;
+        private long totalSize;
+    }
+
+    private final List<ListedFile> packed;
+    private final List<Integer> offsets;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors for blocking file I/O, such as reading attributes, prefetching files and reading ahead.
+ *
+ * <p>This is the implementation for Java 21 and later in the multi-release JAR, with virtual threads. A virtual thread
+ * blocked on file I/O is cheap, so that {@code threads} can be much larger than the number of processors to keep many
+ * requests in flight against high-latency storage.
+ */
+final class IoThreads {
+    private IoThreads() {
+        // No instantiation.
+    }
+
+    /**
+     * Creates an executor which runs at most {@code threads} tasks at a time in virtual threads named {@code name}.
+     */
+    static ExecutorService newExecutor(final String name, final int threads) {
+        return Executors.newFixedThreadPool(threads, Thread.ofVirtual().name(name).factory());
+    }
+
+    static boolean isVirtual() {
+        return true;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+/**
+ * Tests Decompression and BgzfInputStream.
+ */
+public class TestDecompression {
+    @Test
+    public void testPassThroughUncompressed() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (final byte[] content : new byte[][] { new byte[0], new byte[] { 0x1f }, content(1000) }) {
+                assertArrayEquals(content, readAll(Decompression.open(new ByteArrayInputStream(content), executor, 4)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGzipWithConcatenatedMembers() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final byte[] content = content(200000);
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            compressed.write(gzip(content, 0, 150000));
+            compressed.write(gzip(content, 150000, content.length));
+            for (final ExecutorService executorOrNull : new ExecutorService[] { null, executor }) {
+                assertArrayEquals(content, readAll(Decompression.open(new ByteArrayInputStream(compressed.toByteArray()), executorOrNull, 4)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBgzfInParallel() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final byte[] content = content(1000000);
+            final byte[] compressed = bgzf(content);
+            final InputStream in = Decompression.open(new ByteArrayInputStream(compressed), executor, 6);
+            assertTrue(in instanceof BgzfInputStream);
+            assertArrayEquals(content, readAll(in));
+
+            // Decoded sequentially as ordinary gzip without an executor.
+            assertArrayEquals(content, readAll(Decompression.open(new ByteArrayInputStream(compressed), null, 6)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBgzfWithCorruptedCrc() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final byte[] compressed = bgzf(content(100000));
+            // The CRC32 of the first block.
+            compressed[readUnsignedShort(compressed, 16) + 1 - 8] ^= 0x01;
+            try {
+                readAll(Decompression.open(new ByteArrayInputStream(compressed), executor, 4));
+                fail("IOException is expected.");
+            } catch (final IOException ex) {
+                // Expected.
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] content(final int size) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append(i).append(",line ").append(i * 31 % 1000).append('\n');
+        }
+        return builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(final byte[] content, final int from, final int to) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content, from, to - from);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Compresses {@code content} into BGZF blocks of 60000 bytes each, followed by the empty EOF block as bgzip does.
+     */
+    private static byte[] bgzf(final byte[] content) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int from = 0; from < content.length; from += 60000) {
+            writeBgzfBlock(out, content, from, Math.min(from + 60000, content.length));
+        }
+        writeBgzfBlock(out, content, 0, 0);
+        return out.toByteArray();
+    }
+
+    private static void writeBgzfBlock(final ByteArrayOutputStream out, final byte[] content, final int from, final int to) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content, from, to - from);
+        deflater.finish();
+        final byte[] deflated = new byte[65536];
+        int deflatedSize = 0;
+        while (!deflater.finished()) {
+            deflatedSize += deflater.deflate(deflated, deflatedSize, deflated.length - deflatedSize);
+        }
+        deflater.end();
+        final CRC32 crc = new CRC32();
+        crc.update(content, from, to - from);
+
+        final int blockSize = 18 + deflatedSize + 8;
+        out.write(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0 }, 0, 16);
+        writeLittleEndian(out, blockSize - 1, 2);
+        out.write(deflated, 0, deflatedSize);
+        writeLittleEndian(out, crc.getValue(), 4);
+        writeLittleEndian(out, to - from, 4);
+    }
+
+    private static void writeLittleEndian(final ByteArrayOutputStream out, final long value, final int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+
+    private static int readUnsignedShort(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final InputStream closing = in) {
+            final byte[] buffer = new byte[7919];
+            for (int n = closing.read(buffer); n >= 0; n = closing.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+}
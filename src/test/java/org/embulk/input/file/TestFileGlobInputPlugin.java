@@ -17,15 +17,33 @@
 package org.embulk.input.file;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import org.embulk.config.ConfigDiff;
 import org.embulk.config.ConfigSource;
+import org.embulk.config.TaskReport;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.TransactionalFileInput;
 import org.embulk.test.EmbulkTestRuntime;
 import org.embulk.util.config.ConfigMapperFactory;
 import org.junit.Rule;
@@ -99,6 +117,703 @@ public class TestFileGlobInputPlugin {
         assertTrue(files.contains(buildPath("logs/sub2/other.csv")));
     }
 
+    @Test
+    public void testListFilesWithGlobPatternPerDirectoryLevel() throws IOException {
+        Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant1", "2026-10-01"));
+        Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant1", "2025-01-01"));
+        Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant2", "2026-10-02", "deeper"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant1", "2026-10-01", "part-0.gz"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant1", "2026-10-01", "other.gz"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant1", "2025-01-01", "part-0.gz"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant2", "2026-10-02", "part-1.gz"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "data", "tenant2", "2026-10-02", "deeper", "part-2.gz"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "data", "part-3.gz"));
+
+        final FileGlobInputPlugin.PluginTask task = buildTask("data/*/2026-10-*/part-*.gz");
+        final List<String> files = listFiles(task);
+        assertEquals(2, files.size());
+        assertTrue(files.contains(buildPath("data/tenant1/2026-10-01/part-0.gz")));
+        assertTrue(files.contains(buildPath("data/tenant2/2026-10-02/part-1.gz")));
+
+        final FileGlobInputPlugin.PluginTask recursiveTask = buildTask("data/**/2026-10-*/**");
+        final List<String> recursiveFiles = listFiles(recursiveTask);
+        assertEquals(4, recursiveFiles.size());
+        assertTrue(recursiveFiles.contains(buildPath("data/tenant1/2026-10-01/part-0.gz")));
+        assertTrue(recursiveFiles.contains(buildPath("data/tenant1/2026-10-01/other.gz")));
+        assertTrue(recursiveFiles.contains(buildPath("data/tenant2/2026-10-02/part-1.gz")));
+        assertTrue(recursiveFiles.contains(buildPath("data/tenant2/2026-10-02/deeper/part-2.gz")));
+    }
+
+    @Test
+    public void testListFilesWithSymbolicLinkToDirectory() throws IOException {
+        assumeFalse(System.getProperty("os.name").contains("Windows"));
+
+        Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "real"));
+        Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "base"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "real", "linked.csv"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "base", "plain.csv"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "target.csv"));
+        Files.createSymbolicLink(Paths.get(this.workdir.getRoot().getPath(), "base", "linkdir"),
+                                 Paths.get(this.workdir.getRoot().getPath(), "real"));
+        Files.createSymbolicLink(Paths.get(this.workdir.getRoot().getPath(), "base", "linkfile.csv"),
+                                 Paths.get(this.workdir.getRoot().getPath(), "target.csv"));
+
+        final List<String> prefixFiles = listFiles(buildTask("base", null, false));
+        assertEquals(2, prefixFiles.size());
+        assertTrue(prefixFiles.contains(buildPath("base/plain.csv")));
+        assertTrue(prefixFiles.contains(buildPath("base/linkfile.csv")));
+
+        final List<String> prefixFilesFollowed = listFiles(buildTask("base", null, true));
+        assertEquals(3, prefixFilesFollowed.size());
+        assertTrue(prefixFilesFollowed.contains(buildPath("base/plain.csv")));
+        assertTrue(prefixFilesFollowed.contains(buildPath("base/linkfile.csv")));
+        assertTrue(prefixFilesFollowed.contains(buildPath("base/linkdir/linked.csv")));
+
+        final List<String> globFiles = listFiles(buildTask("base/**", null, false));
+        assertEquals(2, globFiles.size());
+        assertTrue(globFiles.contains(buildPath("base/plain.csv")));
+        assertTrue(globFiles.contains(buildPath("base/linkfile.csv")));
+
+        final List<String> globFilesFollowed = listFiles(buildTask("base/**", null, true));
+        assertEquals(3, globFilesFollowed.size());
+        assertTrue(globFilesFollowed.contains(buildPath("base/plain.csv")));
+        assertTrue(globFilesFollowed.contains(buildPath("base/linkfile.csv")));
+        assertTrue(globFilesFollowed.contains(buildPath("base/linkdir/linked.csv")));
+
+        // "linkdir" is at the maximum depth of the pattern. It is visited like a file, but it must not be listed.
+        final List<String> globFilesAtMaxDepth = listFiles(buildTask("base/*", null, true));
+        assertEquals(2, globFilesAtMaxDepth.size());
+        assertTrue(globFilesAtMaxDepth.contains(buildPath("base/plain.csv")));
+        assertTrue(globFilesAtMaxDepth.contains(buildPath("base/linkfile.csv")));
+    }
+
+    @Test
+    public void testListFilesInParallel() throws IOException {
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 300; j += 7) {
+                Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "tree", "dir" + i, "sub" + (j % 3)));
+                Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "tree", "dir" + i, "sub" + (j % 3), "file" + j + ".csv"));
+                Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "tree", "dir" + i, "file" + j + ".txt"));
+            }
+        }
+
+        for (final String subPathGlob : new String[] { "tree", "tree/dir", "tree/**/*.csv", "tree/dir[1-3]/*" }) {
+            final List<String> expected = new ArrayList<>(listFiles(buildTask(subPathGlob)));
+            Collections.sort(expected);
+
+            final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+            config.set("path_glob", buildPath(subPathGlob));
+            config.set("listing_threads", 4);
+            final List<String> actual = listFiles(
+                    CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class));
+            assertTrue(!expected.isEmpty());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testListFilesWithMultipleGlobsAndExcludes() throws IOException {
+        for (final String dir : new String[] { "a", "b" }) {
+            Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "multi", dir));
+            for (final String file : new String[] { "x.csv", "y.tsv", "z.txt" }) {
+                Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "multi", dir, file));
+            }
+        }
+        Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "multi", "a", "_tmp"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "multi", "a", "_tmp", "w.csv"));
+        Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "other"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "other", "q.csv"));
+
+        for (final int listingThreads : new int[] { 1, 4 }) {
+            final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+            config.set("path_globs", Arrays.asList(
+                    buildPath("multi/**/*.csv"), buildPath("multi/**/*.tsv"), buildPath("multi/a/*.csv"), buildPath("other/*.csv")));
+            config.set("exclude_globs", Arrays.asList("**/_tmp/**"));
+            config.set("listing_threads", listingThreads);
+            final List<String> files = new ArrayList<>(listFiles(
+                    CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class)));
+            Collections.sort(files);
+            assertEquals(Arrays.asList(
+                    buildPath("multi/a/x.csv"),
+                    buildPath("multi/a/y.tsv"),
+                    buildPath("multi/b/x.csv"),
+                    buildPath("multi/b/y.tsv"),
+                    buildPath("other/q.csv")), files);
+        }
+
+        final ConfigSource prefixConfig = CONFIG_MAPPER_FACTORY.newConfigSource();
+        prefixConfig.set("path_glob", buildPath("multi"));
+        prefixConfig.set("exclude_globs", Arrays.asList("**/_tmp/**", "**.txt"));
+        final List<String> prefixFiles = new ArrayList<>(listFiles(
+                CONFIG_MAPPER_FACTORY.createConfigMapper().map(prefixConfig, FileGlobInputPlugin.PluginTask.class)));
+        Collections.sort(prefixFiles);
+        assertEquals(Arrays.asList(
+                buildPath("multi/a/x.csv"),
+                buildPath("multi/a/y.tsv"),
+                buildPath("multi/b/x.csv"),
+                buildPath("multi/b/y.tsv")), prefixFiles);
+    }
+
+    @Test
+    public void testListFilesFilteredBySizeAndModifiedTime() throws IOException {
+        final Path filtered = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "filtered"));
+        final long now = System.currentTimeMillis();
+        final Object[][] files = {
+            { "empty.csv", 0, now - 7200_000L },
+            { "old.csv", 10, now - 7200_000L },
+            { "recent.csv", 10, now - 60_000L },
+            { "large.csv", 1000, now - 7200_000L },
+        };
+        for (final Object[] file : files) {
+            final Path path = Files.write(filtered.resolve((String) file[0]), new byte[(Integer) file[1]]);
+            Files.setLastModifiedTime(path, FileTime.fromMillis((Long) file[2]));
+        }
+
+        for (final String pathGlob : new String[] { buildPath("filtered/"), buildPath("filtered/*.csv") }) {
+            final ConfigSource sizeConfig = CONFIG_MAPPER_FACTORY.newConfigSource();
+            sizeConfig.set("path_glob", pathGlob);
+            sizeConfig.set("min_size", 1);
+            sizeConfig.set("max_size", 100);
+            final List<String> sized = new ArrayList<>(listFiles(
+                    CONFIG_MAPPER_FACTORY.createConfigMapper().map(sizeConfig, FileGlobInputPlugin.PluginTask.class)));
+            Collections.sort(sized);
+            assertEquals(Arrays.asList(buildPath("filtered/old.csv"), buildPath("filtered/recent.csv")), sized);
+
+            final ConfigSource ageConfig = CONFIG_MAPPER_FACTORY.newConfigSource();
+            ageConfig.set("path_glob", pathGlob);
+            ageConfig.set("min_age", 600);
+            ageConfig.set("modified_after", Instant.ofEpochMilli(now - 86400_000L).toString());
+            final List<String> aged = new ArrayList<>(listFiles(
+                    CONFIG_MAPPER_FACTORY.createConfigMapper().map(ageConfig, FileGlobInputPlugin.PluginTask.class)));
+            Collections.sort(aged);
+            assertEquals(Arrays.asList(
+                    buildPath("filtered/empty.csv"), buildPath("filtered/large.csv"), buildPath("filtered/old.csv")), aged);
+
+            final ConfigSource beforeConfig = CONFIG_MAPPER_FACTORY.newConfigSource();
+            beforeConfig.set("path_glob", pathGlob);
+            beforeConfig.set("modified_before", Instant.ofEpochMilli(now - 3600_000L).atOffset(ZoneOffset.ofHours(9)).toString());
+            beforeConfig.set("min_size", 1);
+            final List<String> before = new ArrayList<>(listFiles(
+                    CONFIG_MAPPER_FACTORY.createConfigMapper().map(beforeConfig, FileGlobInputPlugin.PluginTask.class)));
+            Collections.sort(before);
+            assertEquals(Arrays.asList(buildPath("filtered/large.csv"), buildPath("filtered/old.csv")), before);
+        }
+    }
+
+    @Test
+    public void testListFilesInSortedOrder() throws IOException {
+        final Path root = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "sorted"));
+        for (final String dir : new String[] { "a", "a.b", "a-b", "ab", "a/c", "b" }) {
+            Files.createDirectories(root.resolve(dir));
+        }
+        for (final String file : new String[] { "a.csv", "a/c.csv", "a/c/d.csv", "a/cc.csv", "a.b/e.csv", "a-b/f.csv",
+                                                "ab/g.csv", "a0.csv", "b/h.csv", "b.csv", "B.csv" }) {
+            Files.createFile(root.resolve(file));
+        }
+
+        for (final String pathGlob : new String[] { buildPath("sorted/"), buildPath("sorted/**.csv") }) {
+            for (final int listingThreads : new int[] { 1, 4 }) {
+                final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+                config.set("path_glob", pathGlob);
+                config.set("listing_threads", listingThreads);
+                final List<String> files = listFiles(
+                        CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class));
+                final List<String> sorted = new ArrayList<>(files);
+                Collections.sort(sorted);
+                assertEquals(11, files.size());
+                assertEquals(pathGlob + " with " + listingThreads + " threads", sorted, files);
+            }
+        }
+    }
+
+    @Test
+    public void testListFilesWithStatThreads() throws IOException {
+        final Path root = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "stat"));
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            final Path dir = Files.createDirectories(root.resolve("d" + (i % 3)));
+            expected.add(Files.createFile(dir.resolve("f" + i + ".csv")).toString());
+            Files.createDirectories(dir.resolve("sub" + i));
+        }
+        Collections.sort(expected);
+
+        for (final String pathGlob : new String[] { buildPath("stat/"), buildPath("stat/**.csv") }) {
+            for (final int statThreads : new int[] { 1, 4 }) {
+                final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+                config.set("path_glob", pathGlob);
+                config.set("stat_threads", statThreads);
+                assertEquals(pathGlob + " with " + statThreads + " threads", expected, listFiles(
+                        CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class)));
+            }
+        }
+    }
+
+    @Test
+    public void testListFilesWithListingCache() throws IOException {
+        final Path cached = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "cached"));
+        final Path dirA = Files.createDirectories(cached.resolve("a"));
+        final Path dirB = Files.createDirectories(cached.resolve("b"));
+        Files.createFile(dirA.resolve("1.csv"));
+        Files.createFile(dirB.resolve("2.csv"));
+        final FileTime anHourAgo = FileTime.fromMillis(System.currentTimeMillis() - 3600L * 1000L);
+        for (final Path dir : new Path[] { cached, dirA, dirB }) {
+            Files.setLastModifiedTime(dir, anHourAgo);
+        }
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("cached/**/*.csv"));
+        config.set("listing_cache_path", buildPath("listing_cache.json"));
+        final FileGlobInputPlugin.PluginTask task =
+                CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class);
+
+        final List<String> first = listFiles(task);
+        assertEquals(2, first.size());
+        assertTrue(Files.exists(Paths.get(buildPath("listing_cache.json"))));
+
+        // The cached entries are reused as long as the modification time of the directory is unchanged.
+        Files.createFile(dirA.resolve("3.csv"));
+        Files.setLastModifiedTime(dirA, anHourAgo);
+        assertEquals(first, listFiles(task));
+
+        Files.setLastModifiedTime(dirA, FileTime.fromMillis(System.currentTimeMillis()));
+        final List<String> third = listFiles(task);
+        assertEquals(3, third.size());
+        assertTrue(third.contains(buildPath("cached/a/3.csv")));
+    }
+
+    @Test
+    public void testListFilesWithListingCacheOfRepointedSymlink() throws IOException {
+        final Path root = Paths.get(this.workdir.getRoot().getPath());
+        final Path linked = Files.createDirectories(root.resolve("linked"));
+        final Path targetFile = Files.createFile(root.resolve("target_file"));
+        final Path targetDir = Files.createDirectories(root.resolve("target_dir"));
+        Files.createFile(targetDir.resolve("a.csv"));
+        final Path link = Files.createSymbolicLink(linked.resolve("link"), targetFile);
+        final FileTime anHourAgo = FileTime.fromMillis(System.currentTimeMillis() - 3600L * 1000L);
+        Files.setLastModifiedTime(linked, anHourAgo);
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("linked/"));
+        config.set("follow_symlinks", true);
+        config.set("listing_cache_path", buildPath("symlink_cache.json"));
+        final FileGlobInputPlugin.PluginTask task =
+                CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class);
+        assertEquals(Arrays.asList(buildPath("linked/link")), listFiles(task));
+
+        // Re-pointing the link to a directory does not change the modification time of its directory.
+        Files.delete(link);
+        Files.createSymbolicLink(link, targetDir);
+        Files.setLastModifiedTime(linked, anHourAgo);
+        assertEquals(Arrays.asList(buildPath("linked/link/a.csv")), listFiles(task));
+    }
+
+    @Test
+    public void testReadFilesPackedIntoTasks() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            Files.write(Paths.get(this.workdir.getRoot().getPath(), "packed" + i + ".csv"),
+                        ("line" + i + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("packed"));
+        config.set("tasks", 2);
+        final List<List<String>> tasks = readAllTasks(config);
+        assertEquals(2, tasks.size());
+        final List<String> contents = new ArrayList<>();
+        for (final List<String> taskContents : tasks) {
+            contents.addAll(taskContents);
+        }
+        Collections.sort(contents);
+        assertEquals(Arrays.asList("line0\n", "line1\n", "line2\n", "line3\n", "line4\n"), contents);
+    }
+
+    @Test
+    public void testReadTasksLargestFirst() throws IOException {
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "ordered_a.csv"), "a\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "ordered_b.csv"), "bbb\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "ordered_c.csv"), "cc\n".getBytes(StandardCharsets.UTF_8));
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("ordered_"));
+        config.set("task_order", "largest_first");
+        final List<List<String>> tasks = new ArrayList<>();
+        final ConfigDiff configDiff = transactAndRead(config, tasks);
+        assertEquals(Arrays.asList(Arrays.asList("bbb\n"), Arrays.asList("cc\n"), Arrays.asList("a\n")), tasks);
+        // "last_path" is the last path in the listing order, not of the last task.
+        assertEquals(buildPath("ordered_c.csv"), configDiff.get(String.class, "last_path"));
+    }
+
+    @Test
+    public void testTaskSourcesOfTransactionsHaveDifferentTransactionIds() throws IOException {
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "transaction.csv"), "t\n".getBytes(StandardCharsets.UTF_8));
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("transaction.csv"));
+        final List<String> transactionIds = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            new FileGlobInputPlugin().transaction(config, (taskSource, taskCount) -> {
+                // MappedTaskCache finds the task by this key in task sources.
+                transactionIds.add(taskSource.get(String.class, "TransactionId"));
+                return new ArrayList<>();
+            });
+        }
+        assertEquals(2, new HashSet<>(transactionIds).size());
+    }
+
+    @Test
+    public void testReadFilesSplitIntoRanges() throws IOException {
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            large.append("record").append(i).append(",value\n");
+        }
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "split-large.csv"), large.toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "split-small.csv"), "small\n".getBytes(StandardCharsets.UTF_8));
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("split-"));
+        config.set("split_size", 500);
+        final List<List<String>> tasks = readAllTasks(config);
+        // "split-large.csv" has 1490 bytes.
+        assertEquals(4, tasks.size());
+        final StringBuilder readLarge = new StringBuilder();
+        int smallCount = 0;
+        for (final List<String> task : tasks) {
+            assertEquals(1, task.size());
+            if (task.get(0).equals("small\n")) {
+                smallCount++;
+            } else {
+                assertTrue(task.get(0).endsWith("\n"));
+                readLarge.append(task.get(0));
+            }
+        }
+        assertEquals(1, smallCount);
+        assertEquals(large.toString(), readLarge.toString());
+    }
+
+    @Test
+    public void testReadFilesInReadModes() throws IOException {
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            large.append("record").append(i).append(",value\n");
+        }
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "mode-large.csv"), large.toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "mode-small.csv"), "small\n".getBytes(StandardCharsets.UTF_8));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "mode-empty.csv"));
+
+        for (final String readMode : new String[] { "stream", "channel", "mmap" }) {
+            for (final Long splitSize : new Long[] { null, 100000L }) {
+                final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+                config.set("path_glob", buildPath("mode-"));
+                config.set("read_mode", readMode);
+                config.set("tasks", 1);
+                if (splitSize != null) {
+                    config.set("split_size", splitSize);
+                }
+                final List<List<String>> tasks = readAllTasks(config);
+                assertEquals(1, tasks.size());
+                final List<String> contents = tasks.get(0);
+                assertEquals(readMode, (splitSize == null) ? 3 : 6, contents.size());
+                assertTrue(readMode, contents.contains("small\n"));
+                assertTrue(readMode, contents.contains(""));
+                final StringBuilder joinedLarge = new StringBuilder();
+                for (final String content : contents) {
+                    if (content.startsWith("record")) {
+                        joinedLarge.append(content);
+                    }
+                }
+                assertEquals(readMode, large.toString(), joinedLarge.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testReadFilesWithReadBufferSizeAndReadAhead() throws IOException {
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            large.append("record").append(i).append(",value\n");
+        }
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "ahead-large.csv"), large.toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "ahead-small.csv"), "small\n".getBytes(StandardCharsets.UTF_8));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "ahead-empty.csv"));
+
+        for (final String readMode : new String[] { "stream", "channel", "mmap" }) {
+            final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+            config.set("path_glob", buildPath("ahead-"));
+            config.set("read_mode", readMode);
+            config.set("read_buffer_size", 4096);
+            config.set("read_ahead_buffers", 2);
+            config.set("tasks", 1);
+            final List<List<String>> tasks = readAllTasks(config);
+            assertEquals(1, tasks.size());
+            final List<String> contents = tasks.get(0);
+            assertEquals(readMode, 3, contents.size());
+            assertTrue(readMode, contents.contains(large.toString()));
+            assertTrue(readMode, contents.contains("small\n"));
+            assertTrue(readMode, contents.contains(""));
+        }
+    }
+
+    @Test
+    public void testReadFilesWithDecompressAuto() throws IOException {
+        try (final GZIPOutputStream out = new GZIPOutputStream(
+                Files.newOutputStream(Paths.get(this.workdir.getRoot().getPath(), "decompress1.csv.gz")))) {
+            out.write("a,b\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "decompress2.csv"), "c,d\n".getBytes(StandardCharsets.UTF_8));
+
+        for (final int decompressThreads : new int[] { 1, 2 }) {
+            final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+            config.set("path_glob", buildPath("decompress"));
+            config.set("tasks", 1);
+            config.set("decompress", "auto");
+            config.set("decompress_threads", decompressThreads);
+            assertEquals(Arrays.asList(Arrays.asList("a,b\n", "c,d\n")), readAllTasks(config));
+        }
+    }
+
+    @Test
+    public void testReadFilesWithPrefetch() throws IOException {
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final StringBuilder content = new StringBuilder();
+            for (int line = 0; line < i * 40000; line++) {
+                content.append(i).append(',').append(line).append('\n');
+            }
+            Files.write(Paths.get(this.workdir.getRoot().getPath(), "prefetch" + i + ".csv"),
+                        content.toString().getBytes(StandardCharsets.UTF_8));
+            expected.add(content.toString());
+        }
+
+        for (final int prefetchSize : new int[] { 1, 7, 100000, 10000000 }) {
+            final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+            config.set("path_glob", buildPath("prefetch"));
+            config.set("tasks", 1);
+            config.set("prefetch_size", prefetchSize);
+            final List<List<String>> tasks = readAllTasks(config);
+            assertEquals(1, tasks.size());
+            final List<String> contents = new ArrayList<>(tasks.get(0));
+            Collections.sort(contents);
+            assertEquals(String.valueOf(prefetchSize), expected, contents);
+        }
+    }
+
+    @Test
+    public void testFileListManifest() throws IOException {
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "manifest1.csv"));
+        Files.createFile(Paths.get(this.workdir.getRoot().getPath(), "manifest2.csv"));
+        final Path manifest = Paths.get(this.workdir.getRoot().getPath(), "files.txt");
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("manifest"));
+        config.set("file_list_manifest_path", manifest.toString());
+        config.set("log_sample_files", 1);
+        readAllTasks(config);
+        final List<String> lines = new ArrayList<>(Files.readAllLines(manifest, StandardCharsets.UTF_8));
+        Collections.sort(lines);
+        assertEquals(Arrays.asList(buildPath("manifest1.csv"), buildPath("manifest2.csv")), lines);
+    }
+
+    @Test
+    public void testReadStatsInTaskReports() throws IOException {
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "stats1.csv"), "a,b\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(Paths.get(this.workdir.getRoot().getPath(), "stats2.csv"), "c,d\ne,f\n".getBytes(StandardCharsets.UTF_8));
+
+        for (final int readAheadBuffers : new int[] { 0, 2 }) {
+            final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+            config.set("path_glob", buildPath("stats"));
+            config.set("tasks", 1);
+            config.set("read_ahead_buffers", readAheadBuffers);
+            final FileGlobInputPlugin plugin = new FileGlobInputPlugin();
+            final List<TaskReport> reports = new ArrayList<>();
+            plugin.transaction(config, (taskSource, taskCount) -> {
+                try (final TransactionalFileInput input = plugin.open(taskSource, 0)) {
+                    while (input.nextFile()) {
+                        for (Buffer buffer = input.poll(); buffer != null; buffer = input.poll()) {
+                            buffer.release();
+                        }
+                    }
+                    reports.add(input.commit());
+                }
+                return reports;
+            });
+            assertEquals(1, reports.size());
+            assertEquals(Long.valueOf(2L), reports.get(0).get(Long.class, "files_read"));
+            assertEquals(Long.valueOf(12L), reports.get(0).get(Long.class, "bytes_read"));
+            assertTrue(reports.get(0).has("read_millis"));
+            assertTrue(reports.get(0).has("bytes_per_second"));
+        }
+    }
+
+    @Test
+    public void testIncrementalModeMtime() throws IOException {
+        final Path dir = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "incremental"));
+        final long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(Files.write(dir.resolve("m.csv"), new byte[] { 'm' }), FileTime.fromMillis(now - 3000L));
+        Files.setLastModifiedTime(Files.write(dir.resolve("n.csv"), new byte[] { 'n' }), FileTime.fromMillis(now - 2000L));
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("incremental/*.csv"));
+        config.set("incremental_mode", "mtime");
+        final List<String> firstRun = new ArrayList<>();
+        final ConfigDiff firstDiff = readAllFiles(config, firstRun);
+        Collections.sort(firstRun);
+        assertEquals(Arrays.asList("m", "n"), firstRun);
+        assertEquals(Instant.ofEpochMilli(now - 2000L).toString(), firstDiff.get(String.class, "last_modified_time"));
+        assertFalse(firstDiff.has("last_path"));
+
+        // A file whose name sorts first is new by its modification time. A file modified at the watermark is new unless
+        // it is in the boundary set.
+        Files.setLastModifiedTime(Files.write(dir.resolve("a.csv"), new byte[] { 'a' }), FileTime.fromMillis(now - 1000L));
+        Files.setLastModifiedTime(Files.write(dir.resolve("b.csv"), new byte[] { 'b' }), FileTime.fromMillis(now - 2000L));
+        Files.setLastModifiedTime(Files.write(dir.resolve("c.csv"), new byte[] { 'c' }), FileTime.fromMillis(now - 5000L));
+        config.merge(firstDiff);
+        final List<String> secondRun = new ArrayList<>();
+        final ConfigDiff secondDiff = readAllFiles(config, secondRun);
+        Collections.sort(secondRun);
+        assertEquals(Arrays.asList("a", "b"), secondRun);
+        assertEquals(Instant.ofEpochMilli(now - 1000L).toString(), secondDiff.get(String.class, "last_modified_time"));
+
+        // The watermark is kept if no file is new.
+        config.merge(secondDiff);
+        final List<String> thirdRun = new ArrayList<>();
+        final ConfigDiff thirdDiff = readAllFiles(config, thirdRun);
+        assertEquals(Collections.emptyList(), thirdRun);
+        assertEquals(Instant.ofEpochMilli(now - 1000L).toString(), thirdDiff.get(String.class, "last_modified_time"));
+    }
+
+    @Test
+    public void testListFilesDeduplicatedByFileKey() throws IOException {
+        final Path dir = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "dedupe"));
+        final Path real = Files.createDirectories(dir.resolve("real"));
+        final Path original = Files.write(real.resolve("a.csv"), new byte[] { 'a' });
+        Files.createLink(dir.resolve("hardlink.csv"), original);
+        Files.createSymbolicLink(dir.resolve("symlink"), real);
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("dedupe/**.csv"));
+        config.set("follow_symlinks", true);
+        assertEquals(
+                Arrays.asList(buildPath("dedupe/hardlink.csv"), buildPath("dedupe/real/a.csv"), buildPath("dedupe/symlink/a.csv")),
+                listFiles(CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class)));
+
+        // The least path of the same file is kept.
+        config.set("deduplicate_by_file_key", true);
+        assertEquals(
+                Arrays.asList(buildPath("dedupe/hardlink.csv")),
+                listFiles(CONFIG_MAPPER_FACTORY.createConfigMapper().map(config, FileGlobInputPlugin.PluginTask.class)));
+    }
+
+    @Test
+    public void testFingerprintStore() throws IOException {
+        final Path dir = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "fingerprint"));
+        final FileTime modified = FileTime.fromMillis(System.currentTimeMillis() - 3600L * 1000L);
+        Files.setLastModifiedTime(Files.write(dir.resolve("a.csv"), new byte[] { 'a' }), modified);
+        Files.setLastModifiedTime(Files.write(dir.resolve("b.csv"), new byte[] { 'b', 'b' }), modified);
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("fingerprint/*"));
+        config.set("fingerprint_store_path", buildPath("fingerprints.json"));
+        config.set("fingerprint_sample_size", 4);
+        final List<String> firstRun = new ArrayList<>();
+        readAllFiles(config, firstRun);
+        Collections.sort(firstRun);
+        assertEquals(Arrays.asList("a", "bb"), firstRun);
+        assertTrue(Files.exists(Paths.get(buildPath("fingerprints.json"))));
+        assertFalse(Files.exists(Paths.get(buildPath("fingerprints.json.pending"))));
+
+        // A renamed file is skipped, and a file of the same size and time with different content is loaded.
+        Files.move(dir.resolve("a.csv"), dir.resolve("renamed.csv"));
+        Files.setLastModifiedTime(Files.write(dir.resolve("c.csv"), new byte[] { 'c', 'c' }), modified);
+        final List<String> secondRun = new ArrayList<>();
+        readAllFiles(config, secondRun);
+        assertEquals(Arrays.asList("cc"), secondRun);
+
+        // The store is not updated if the run fails.
+        Files.setLastModifiedTime(Files.write(dir.resolve("d.csv"), new byte[] { 'd' }), modified);
+        try {
+            new FileGlobInputPlugin().transaction(config, (taskSource, taskCount) -> {
+                throw new RuntimeException("failed");
+            });
+            fail("The transaction must fail.");
+        } catch (final RuntimeException ex) {
+            assertEquals("failed", ex.getMessage());
+        }
+        final List<String> thirdRun = new ArrayList<>();
+        readAllFiles(config, thirdRun);
+        assertEquals(Arrays.asList("d"), thirdRun);
+    }
+
+    @Test
+    public void testFingerprintStoreLoadsFilesOfSameSizeAndTime() throws IOException {
+        final Path dir = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "lookalike"));
+        final FileTime modified = FileTime.fromMillis(System.currentTimeMillis() - 3600L * 1000L);
+        Files.setLastModifiedTime(Files.write(dir.resolve("x.csv"), new byte[] { 'x' }), modified);
+        Files.setLastModifiedTime(Files.write(dir.resolve("y.csv"), new byte[] { 'y' }), modified);
+        Files.setLastModifiedTime(Files.write(dir.resolve("empty1.csv"), new byte[0]), modified);
+        Files.setLastModifiedTime(Files.write(dir.resolve("empty2.csv"), new byte[0]), modified);
+
+        // Files listed in the same run are all loaded, with the default "fingerprint_sample_size".
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("lookalike/*"));
+        config.set("fingerprint_store_path", buildPath("lookalike.json"));
+        final List<String> firstRun = new ArrayList<>();
+        readAllFiles(config, firstRun);
+        Collections.sort(firstRun);
+        assertEquals(Arrays.asList("", "", "x", "y"), firstRun);
+
+        // A different file of the same size and time as a loaded file is loaded in the next run.
+        Files.setLastModifiedTime(Files.write(dir.resolve("z.csv"), new byte[] { 'z' }), modified);
+        final List<String> secondRun = new ArrayList<>();
+        readAllFiles(config, secondRun);
+        assertEquals(Arrays.asList("z"), secondRun);
+    }
+
+    @Test
+    public void testFingerprintStoreWithoutSamples() throws IOException {
+        final Path dir = Files.createDirectories(Paths.get(this.workdir.getRoot().getPath(), "unsampled"));
+        final FileTime modified = FileTime.fromMillis(System.currentTimeMillis() - 3600L * 1000L);
+        Files.setLastModifiedTime(Files.write(dir.resolve("a.csv"), new byte[] { 'a' }), modified);
+
+        final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
+        config.set("path_glob", buildPath("unsampled/*"));
+        config.set("fingerprint_store_path", buildPath("unsampled.json"));
+        config.set("fingerprint_sample_size", 0);
+        final List<String> firstRun = new ArrayList<>();
+        readAllFiles(config, firstRun);
+        assertEquals(Arrays.asList("a"), firstRun);
+
+        // A renamed file keeps its file key, and a different file of the same size and time has another file key.
+        Files.move(dir.resolve("a.csv"), dir.resolve("renamed.csv"));
+        Files.setLastModifiedTime(Files.write(dir.resolve("b.csv"), new byte[] { 'b' }), modified);
+        final List<String> secondRun = new ArrayList<>();
+        readAllFiles(config, secondRun);
+        assertEquals(Arrays.asList("b"), secondRun);
+    }
+
+    @Test
+    public void testGetRealCasePathOfDirectory() throws IOException {
+        this.workdir.newFolder("Data", "2026", "Mixed");
+        final Path root = this.workdir.getRoot().toPath();
+        final Path real = root.resolve("Data").resolve("2026").resolve("Mixed");
+
+        assertEquals(real, FileGlobInputPlugin.getRealCasePathOfDirectoryNoFollowLinks(real));
+        // Found by enumerating directories, on both case-sensitive and case-insensitive file systems.
+        assertEquals(real, FileGlobInputPlugin.getRealCasePathOfDirectoryNoFollowLinks(root.resolve("data").resolve("2026").resolve("mixed")));
+    }
+
+    @Test
+    public void testGetRealCasePathOfDirectoryInCaseSensitiveFileSystem() throws IOException {
+        assumeFalse(System.getProperty("os.name").contains("Windows"));
+        assumeFalse(System.getProperty("os.name").contains("Mac OS"));
+        this.workdir.newFolder("abc");
+        this.workdir.newFolder("ABC");
+        final Path root = this.workdir.getRoot().toPath();
+
+        assertEquals(root.resolve("abc"), FileGlobInputPlugin.getRealCasePathOfDirectoryNoFollowLinks(root.resolve("abc")));
+        assertEquals(root.resolve("ABC"), FileGlobInputPlugin.getRealCasePathOfDirectoryNoFollowLinks(root.resolve("ABC")));
+        // Multiple directories match case-insensitively. The path is taken as specified.
+        assertEquals(root.resolve("aBc"), FileGlobInputPlugin.getRealCasePathOfDirectoryNoFollowLinks(root.resolve("aBc")));
+    }
+
     @Test
     public void testLegacyPathPrefixAliasStillWorks() throws IOException {
         final ConfigSource config = CONFIG_MAPPER_FACTORY.newConfigSource();
@@ -281,6 +996,52 @@ public class TestFileGlobInputPlugin {
         }
     }
 
+    /**
+     * Runs a transaction with {@code config}, and returns the contents of files read in each task.
+     */
+    private static List<List<String>> readAllTasks(final ConfigSource config) {
+        final List<List<String>> tasks = new ArrayList<>();
+        transactAndRead(config, tasks);
+        return tasks;
+    }
+
+    private static ConfigDiff transactAndRead(final ConfigSource config, final List<List<String>> tasks) {
+        final FileGlobInputPlugin plugin = new FileGlobInputPlugin();
+        return plugin.transaction(config, (taskSource, taskCount) -> {
+            for (int taskIndex = 0; taskIndex < taskCount; taskIndex++) {
+                final List<String> contents = new ArrayList<>();
+                try (final TransactionalFileInput input = plugin.open(taskSource, taskIndex)) {
+                    while (input.nextFile()) {
+                        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                        for (Buffer buffer = input.poll(); buffer != null; buffer = input.poll()) {
+                            final byte[] bytes = new byte[buffer.limit()];
+                            buffer.getBytes(0, bytes, 0, bytes.length);
+                            content.write(bytes, 0, bytes.length);
+                            buffer.release();
+                        }
+                        contents.add(new String(content.toByteArray(), StandardCharsets.UTF_8));
+                    }
+                    input.commit();
+                }
+                tasks.add(contents);
+            }
+            return new ArrayList<>();
+        });
+    }
+
+    /**
+     * Runs a transaction with {@code config}, adds the contents of all the files read into {@code contents}, and
+     * returns the next config diff.
+     */
+    private static ConfigDiff readAllFiles(final ConfigSource config, final List<String> contents) {
+        final List<List<String>> tasks = new ArrayList<>();
+        final ConfigDiff configDiff = transactAndRead(config, tasks);
+        for (final List<String> task : tasks) {
+            contents.addAll(task);
+        }
+        return configDiff;
+    }
+
     private static List<String> listFiles(final FileGlobInputPlugin.PluginTask task) {
         return FileGlobInputPlugin.listFilesForTesting(task);
     }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests FileListSummary.
+ */
+public class TestFileListSummary {
+    @Test
+    public void testSummary() {
+        final List<ListedFile> files = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            files.add(new ListedFile(String.format("/data/%03d.csv", i), i));
+        }
+        final FileListSummary summary = FileListSummary.of(files, 4);
+        assertEquals(100, summary.getCount());
+        assertEquals(4950L, summary.getTotalBytes());
+        assertEquals("/data/000.csv", summary.getFirstPath());
+        assertEquals("/data/099.csv", summary.getLastPath());
+        assertEquals(Arrays.asList("/data/000.csv", "/data/025.csv", "/data/050.csv", "/data/075.csv"), summary.getSample());
+        assertEquals("100 files of 4950 bytes in total, from '/data/000.csv' to '/data/099.csv', sampled: "
+                     + "[/data/000.csv, /data/025.csv, /data/050.csv, /data/075.csv]", summary.toString());
+    }
+
+    @Test
+    public void testSampleLargerThanFiles() {
+        final List<ListedFile> files = Arrays.asList(new ListedFile("/a", 1), new ListedFile("/b", 2));
+        assertEquals(Arrays.asList("/a", "/b"), FileListSummary.of(files, 10).getSample());
+        assertEquals(Collections.emptyList(), FileListSummary.of(files, 0).getSample());
+    }
+
+    @Test
+    public void testNoFiles() {
+        final FileListSummary summary = FileListSummary.of(Collections.emptyList(), 10);
+        assertEquals(0, summary.getCount());
+        assertNull(summary.getFirstPath());
+        assertEquals("no files", summary.toString());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+/**
+ * Tests GlobNameMatcher.
+ */
+public class TestGlobNameMatcher {
+    @Test
+    public void testSameAsPathMatcher() {
+        final String[] globs = {
+            "part-00001.json.gz", "*", "*.json.gz", "part-*", "part-*.gz", "*-*.gz", "part-?????.json.gz",
+            "*.{json,csv}", "[a-p]*.gz", "part\\*",
+        };
+        final String[] names = {
+            "part-00001.json.gz", "part-00002.json.gz", "part-.gz", "part-", "part", "x.json.gz", ".json.gz", "a.csv",
+            "p.gz", "q.gz", "part*", "PART-00001.JSON.GZ", "gz",
+        };
+        for (final String glob : globs) {
+            final GlobNameMatcher matcher = GlobNameMatcher.compile(glob);
+            final PathMatcher expected = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            for (final String name : names) {
+                assertEquals(glob + " against " + name, expected.matches(Paths.get(name)), matcher.matches(name));
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Paths;
+import org.junit.Test;
+
+/**
+ * Tests GlobSegmentMatcher.
+ */
+public class TestGlobSegmentMatcher {
+    @Test
+    public void testSingleLevelSegments() {
+        final GlobSegmentMatcher matcher = GlobSegmentMatcher.compile(Paths.get("data", "*", "2026-10-*", "part-*.gz"));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("data"))));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("data", "tenant"))));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("data", "tenant", "2026-10-16"))));
+        assertFalse(matcher.canMatchBelow(matcher.stateOf(Paths.get("data", "tenant", "2025-01-01"))));
+        assertFalse(matcher.canMatchBelow(matcher.stateOf(Paths.get("data", "tenant", "2026-10-16", "sub"))));
+        assertFalse(matcher.canMatchBelow(matcher.stateOf(Paths.get("other"))));
+        assertEquals(3, matcher.maxDepthFrom(1));
+    }
+
+    @Test
+    public void testRecursiveSegments() {
+        final GlobSegmentMatcher matcher = GlobSegmentMatcher.compile(Paths.get("logs", "**", "2026", "*.json"));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("logs", "a"))));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("logs", "a", "b", "c"))));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("logs", "a", "2026"))));
+        assertFalse(matcher.canMatchBelow(matcher.stateOf(Paths.get("other", "a"))));
+        assertEquals(Integer.MAX_VALUE, matcher.maxDepthFrom(1));
+    }
+
+    @Test
+    public void testAnyDepthSegments() {
+        final GlobSegmentMatcher matcher = GlobSegmentMatcher.compile(Paths.get("logs", "a**.json"));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("logs", "b", "c"))));
+        assertFalse(matcher.canMatchBelow(matcher.stateOf(Paths.get("other"))));
+        assertEquals(Integer.MAX_VALUE, matcher.maxDepthFrom(1));
+    }
+
+    @Test
+    public void testMatchesFile() {
+        final GlobSegmentMatcher matcher = GlobSegmentMatcher.compile(Paths.get("logs", "**", "*.json.gz"));
+        assertTrue(matcher.isExact());
+        assertTrue(matcher.matchesFile(matcher.stateOf(Paths.get("logs", "a")), "x.json.gz"));
+        assertTrue(matcher.matchesFile(matcher.stateOf(Paths.get("logs", "a", "b")), "x.json.gz"));
+        assertFalse(matcher.matchesFile(matcher.stateOf(Paths.get("logs")), "x.json.gz"));
+        assertFalse(matcher.matchesFile(matcher.stateOf(Paths.get("logs", "a")), "x.json"));
+        assertFalse(matcher.matchesFile(matcher.stateOf(Paths.get("other", "a")), "x.json.gz"));
+    }
+
+    @Test
+    public void testMayMatchFileName() {
+        final GlobSegmentMatcher matcher = GlobSegmentMatcher.compile(Paths.get("logs", "a**.json.gz"));
+        assertFalse(matcher.isExact());
+        assertTrue(matcher.mayMatchFileName("x.json.gz"));
+        assertFalse(matcher.mayMatchFileName("x.json"));
+    }
+
+    @Test
+    public void testSeparatorInBraces() {
+        final GlobSegmentMatcher matcher = GlobSegmentMatcher.compile(Paths.get("logs/{a/b,c}/*.json"));
+        assertTrue(matcher.canMatchBelow(matcher.stateOf(Paths.get("logs", "x", "y", "z"))));
+        assertEquals(Integer.MAX_VALUE, matcher.maxDepthFrom(1));
+    }
+}
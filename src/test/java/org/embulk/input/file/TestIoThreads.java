@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+/**
+ * Tests IoThreads, run by "testJava21" on Java 21 as well.
+ */
+public class TestIoThreads {
+    @Test
+    public void testVirtualOnlyOnJava21() {
+        assertEquals(javaFeatureVersion() >= 21, IoThreads.isVirtual());
+    }
+
+    /**
+     * Loads the built JAR through a {@link URLClassLoader}, as Embulk's plugin class loader is, to check that the
+     * implementation for Java 21 is picked up from "META-INF/versions/21" on Java 21.
+     */
+    @Test
+    public void testLoadedFromMultiReleaseJar() throws Exception {
+        final String jarPath = System.getProperty("org.embulk.input.file.jar");
+        assumeTrue("The JAR is given only by \"testJava21\".", jarPath != null);
+        try (final URLClassLoader loader = new URLClassLoader(new URL[] { new File(jarPath).toURI().toURL() }, null)) {
+            final Method isVirtual = Class.forName(IoThreads.class.getName(), true, loader).getDeclaredMethod("isVirtual");
+            isVirtual.setAccessible(true);
+            assertEquals(javaFeatureVersion() >= 21, isVirtual.invoke(null));
+        }
+    }
+
+    @Test
+    public void testNewExecutor() throws InterruptedException, ExecutionException {
+        final ExecutorService executor = IoThreads.newExecutor("test-io", 3);
+        try {
+            final List<Future<String>> names = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                names.add(executor.submit(() -> Thread.currentThread().getName()));
+            }
+            for (final Future<String> name : names) {
+                assertEquals("test-io", name.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int javaFeatureVersion() {
+        final String version = System.getProperty("java.specification.version");
+        return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+    }
+}
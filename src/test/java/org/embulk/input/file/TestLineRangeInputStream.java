@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests LineRangeInputStream.
+ */
+public class TestLineRangeInputStream {
+    @Rule
+    public TemporaryFolder workdir = new TemporaryFolder();
+
+    @Test
+    public void testConsecutiveRangesReadAllLinesOnce() throws IOException {
+        for (final String content : new String[] {
+                "a\nbb\n\nccc\ndddd\n",
+                "a\nbb\n\nccc\ndddd",
+                "\n\n\n",
+                "single line without newline",
+                "" }) {
+            final File file = this.workdir.newFile();
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            for (long splitSize = 1; splitSize <= content.length() + 1; splitSize++) {
+                final StringBuilder read = new StringBuilder();
+                for (long start = 0; start < Math.max(content.length(), 1); start += splitSize) {
+                    read.append(readRange(file, start, Math.min(start + splitSize, content.length())));
+                }
+                assertEquals("split size " + splitSize + " of \"" + content + "\"", content, read.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testRangeInTheMiddle() throws IOException {
+        final File file = this.workdir.newFile();
+        Files.write(file.toPath(), "aaa\nbbb\nccc\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals("bbb\n", readRange(file, 4, 8));
+        assertEquals("bbb\n", readRange(file, 2, 6));
+        assertEquals("ccc\n", readRange(file, 5, 9));
+        assertEquals("", readRange(file, 5, 7));
+    }
+
+    private static String readRange(final File file, final long start, final long end) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final InputStream in = LineRangeInputStream.open(file, start, end)) {
+            final byte[] buffer = new byte[3];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
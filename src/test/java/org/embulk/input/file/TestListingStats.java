@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests ListingStats.
+ */
+public class TestListingStats {
+    @Rule
+    public TemporaryFolder workdir = new TemporaryFolder();
+
+    @Test
+    public void testCount() throws IOException {
+        this.workdir.newFolder("keep");
+        this.workdir.newFile("keep/file1");
+        this.workdir.newFile("keep/file2");
+        this.workdir.newFolder("skip");
+        this.workdir.newFile("skip/file3");
+        final Path root = this.workdir.getRoot().toPath();
+
+        final ListingStats stats = new ListingStats();
+        final SimpleFileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                    return dir.endsWith("skip") ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+            };
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, stats.count(visitor, true));
+        stats.finish(2, 0L);
+
+        // The root and "keep" are visited, and "skip" is pruned.
+        assertEquals(2, stats.getDirectoriesVisited());
+        assertEquals(1, stats.getDirectoriesPruned());
+        // The root, "keep", "file1", "file2" and "skip". "file3" is not stat'ed.
+        assertEquals(5, stats.getEntriesStated());
+        assertEquals(2, stats.getFilesMatched());
+    }
+
+    @Test
+    public void testCountWithParallelWalker() throws IOException {
+        this.workdir.newFolder("dir");
+        this.workdir.newFile("dir/file1");
+        this.workdir.newFile("file2");
+        final Path root = this.workdir.getRoot().toPath();
+
+        final ListingStats stats = new ListingStats();
+        ParallelFileTreeWalker.walkFileTree(
+                root, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE,
+                stats.count(new SimpleFileVisitor<Path>() {}, false), 2, null, stats);
+
+        assertEquals(2, stats.getDirectoriesVisited());
+        assertEquals(0, stats.getDirectoriesPruned());
+        assertEquals(4, stats.getEntriesStated());
+    }
+}
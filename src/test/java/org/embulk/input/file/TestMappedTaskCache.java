@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.embulk.config.TaskSource;
+import org.embulk.util.config.ConfigMapperFactory;
+import org.junit.Test;
+
+/**
+ * Tests MappedTaskCache.
+ */
+public class TestMappedTaskCache {
+    @Test
+    public void testMapsOncePerTransaction() {
+        final AtomicInteger mapped = new AtomicInteger();
+        final MappedTaskCache<Object> cache = new MappedTaskCache<>(taskSource -> {
+            mapped.incrementAndGet();
+            return new Object();
+        }, "TransactionId");
+
+        // A new task source instance for each open(), as executors deserialize it for each task.
+        final Object task = cache.get(newTaskSource("first"));
+        assertSame(task, cache.get(newTaskSource("first")));
+        assertEquals(1, mapped.get());
+
+        cache.get(newTaskSource("second"));
+        assertEquals(2, mapped.get());
+
+        cache.remove("second");
+        cache.get(newTaskSource("second"));
+        assertEquals(3, mapped.get());
+    }
+
+    @Test
+    public void testMapsEveryTimeWithoutTransactionId() {
+        final AtomicInteger mapped = new AtomicInteger();
+        final MappedTaskCache<Object> cache = new MappedTaskCache<>(taskSource -> {
+            mapped.incrementAndGet();
+            return new Object();
+        }, "TransactionId");
+        cache.get(CONFIG_MAPPER_FACTORY.newTaskSource());
+        cache.get(CONFIG_MAPPER_FACTORY.newTaskSource());
+        assertEquals(2, mapped.get());
+    }
+
+    @Test
+    public void testKeepsLimitedTransactions() {
+        final MappedTaskCache<Object> cache = new MappedTaskCache<>(taskSource -> new Object(), "TransactionId");
+        final Object first = cache.get(newTaskSource("0"));
+        for (int i = 1; i < 10; i++) {
+            cache.get(newTaskSource(Integer.toString(i)));
+        }
+        assertNotSame(first, cache.get(newTaskSource("0")));
+    }
+
+    private static TaskSource newTaskSource(final String transactionId) {
+        final TaskSource taskSource = CONFIG_MAPPER_FACTORY.newTaskSource();
+        taskSource.set("TransactionId", transactionId);
+        taskSource.set("TaskFileLists", Arrays.asList("files"));
+        return taskSource;
+    }
+
+    private static final ConfigMapperFactory CONFIG_MAPPER_FACTORY = ConfigMapperFactory.builder().addDefaultModules().build();
+}
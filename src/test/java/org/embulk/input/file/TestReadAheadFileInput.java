@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.embulk.config.TaskReport;
+import org.embulk.spi.Buffer;
+import org.embulk.spi.TransactionalFileInput;
+import org.junit.Test;
+
+/**
+ * Tests ReadAheadFileInput.
+ */
+public class TestReadAheadFileInput {
+    @Test(timeout = 10000L)
+    public void testPollKeepsThrowingAfterError() {
+        try (final ReadAheadFileInput input = new ReadAheadFileInput(new FailingFileInput(), 2)) {
+            assertTrue(input.nextFile());
+            for (int i = 0; i < 2; i++) {
+                try {
+                    input.poll();
+                    fail("poll() must throw.");
+                } catch (final IllegalStateException ex) {
+                    assertEquals("failed", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class FailingFileInput implements TransactionalFileInput {
+        @Override
+        public boolean nextFile() {
+            return true;
+        }
+
+        @Override
+        public Buffer poll() {
+            throw new IllegalStateException("failed");
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void abort() {
+        }
+
+        @Override
+        public TaskReport commit() {
+            return null;
+        }
+    }
+}
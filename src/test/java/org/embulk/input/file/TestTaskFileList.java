@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests TaskFileList.
+ */
+public class TestTaskFileList {
+    @Test
+    public void testRoundTrip() {
+        final List<String> paths = Arrays.asList(
+                "/data/logs/2026/01/app.log",
+                "/data/logs/2026/01/app.log.1",
+                "/data/logs/2026/02/app.log",
+                "/data/\ud83d\ude00/a.csv",
+                "/data/\ud83d\ude01/a.csv",
+                "relative.csv",
+                "");
+        final ArrayList<ListedFile> files = new ArrayList<>();
+        for (final String path : paths) {
+            files.add(new ListedFile(path, 10));
+        }
+        final TaskFileList decoded = TaskFileList.decode(TaskFileList.encode(files));
+        assertEquals(paths, decoded.getPaths());
+        assertNull(decoded.getRangeStarts());
+        assertNull(decoded.getRangeEnds());
+    }
+
+    @Test
+    public void testRoundTripWithRanges() {
+        final ArrayList<ListedFile> files = new ArrayList<>();
+        files.add(new ListedFile("/data/small.csv", 10));
+        files.addAll(new ListedFile("/data/large.csv", 250).split(100));
+        final TaskFileList decoded = TaskFileList.decode(TaskFileList.encode(files));
+        assertEquals(Arrays.asList("/data/small.csv", "/data/large.csv", "/data/large.csv", "/data/large.csv"), decoded.getPaths());
+        assertEquals(Arrays.asList(-1L, 0L, 100L, 200L), decoded.getRangeStarts());
+        assertEquals(Arrays.asList(-1L, 100L, 200L, 250L), decoded.getRangeEnds());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(Collections.emptyList(), TaskFileList.decode(TaskFileList.encode(Collections.emptyList())).getPaths());
+    }
+
+    @Test
+    public void testCompact() {
+        final ArrayList<ListedFile> files = new ArrayList<>();
+        int totalLength = 0;
+        for (int i = 0; i < 10000; i++) {
+            final String path = String.format("/var/data/warehouse/events/2026/%02d/%02d/part-%05d.csv", i / 1000 + 1, i % 28 + 1, i);
+            files.add(new ListedFile(path, 1000));
+            totalLength += path.length();
+        }
+        final String encoded = TaskFileList.encode(files);
+        assertTrue("encoded into " + encoded.length() + " chars", encoded.length() < totalLength / 5);
+        assertEquals(files.size(), TaskFileList.decode(encoded).getPaths().size());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 The Embulk project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.embulk.input.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests TaskPacker.
+ */
+public class TestTaskPacker {
+    @Test
+    public void testOnePerTask() {
+        final TaskPacker packer = TaskPacker.onePerTask(FILES);
+        assertEquals(6, packer.getTaskCount());
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c"), Arrays.asList("d"), Arrays.asList("e"), Arrays.asList("f")), tasksOf(packer));
+    }
+
+    @Test
+    public void testByTaskCount() {
+        final TaskPacker packer = TaskPacker.byTaskCount(FILES, 3);
+        assertEquals(3, packer.getTaskCount());
+        // "a" (100) alone, "b" + "d" + "e" (50 + 20 + 10), and "c" + "f" (30 + 40) in the listing order.
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b", "d", "e"), Arrays.asList("c", "f")), tasksOf(packer));
+    }
+
+    @Test
+    public void testByTaskCountMoreThanFiles() {
+        final TaskPacker packer = TaskPacker.byTaskCount(FILES, 10);
+        assertEquals(6, packer.getTaskCount());
+    }
+
+    @Test
+    public void testBySize() {
+        final TaskPacker packerMax = TaskPacker.bySize(FILES, Long.MAX_VALUE, 60);
+        // "a" (100) is larger than 60 by itself.
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c", "d", "e"), Arrays.asList("f")), tasksOf(packerMax));
+
+        final TaskPacker packerMin = TaskPacker.bySize(FILES, 55, Long.MAX_VALUE);
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b", "c"), Arrays.asList("d", "e", "f")), tasksOf(packerMin));
+    }
+
+    @Test
+    public void testLargestFirst() {
+        final TaskPacker packer = TaskPacker.onePerTask(FILES).largestFirst();
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("f"), Arrays.asList("c"), Arrays.asList("d"), Arrays.asList("e")), tasksOf(packer));
+
+        // "f" + "e", "d" + "c" and "b" (50 each) keep their order after "a" (100), and so do files in each task.
+        final List<ListedFile> reversed = Arrays.asList(FILES.get(5), FILES.get(4), FILES.get(3), FILES.get(2), FILES.get(1), FILES.get(0));
+        final TaskPacker packed = TaskPacker.bySize(reversed, Long.MAX_VALUE, 60).largestFirst();
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList("f", "e"), Arrays.asList("d", "c"), Arrays.asList("b")), tasksOf(packed));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, TaskPacker.onePerTask(Arrays.asList()).getTaskCount());
+        assertEquals(0, TaskPacker.byTaskCount(Arrays.asList(), 3).getTaskCount());
+        assertEquals(0, TaskPacker.bySize(Arrays.asList(), 10, 20).getTaskCount());
+    }
+
+    /**
+     * Returns paths of files in each task, as they are encoded into TaskFileList for the task.
+     */
+    private static List<List<String>> tasksOf(final TaskPacker packer) {
+        final List<List<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < packer.getTaskCount(); i++) {
+            final List<String> paths = new ArrayList<>();
+            for (final ListedFile file : packer.getTaskFiles(i)) {
+                paths.add(file.getPath());
+            }
+            tasks.add(paths);
+        }
+        return tasks;
+    }
+
+    private static final List<ListedFile> FILES = Arrays.asList(
+            new ListedFile("a", 100),
+            new ListedFile("b", 50),
+            new ListedFile("c", 30),
+            new ListedFile("d", 20),
+            new ListedFile("e", 10),
+            new ListedFile("f", 40));
+}